@@ -0,0 +1,38 @@
+package com.SenaiCommunity.BackEnd.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+@Configuration
+public class AgendamentoConfig implements SchedulingConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgendamentoConfig.class);
+
+    @Value("${agendamento.threads:4}")
+    private int threads;
+
+    // Pool próprio para os @Scheduled (descarga do log de chat, presença, curtidas, contadores, busca,
+    // resumos, AgendadorEventos). Sem ele o Spring usaria o messageBrokerTaskScheduler do STOMP e os
+    // jobs de banco atrasariam os heartbeats do broker (e vice-versa).
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler agendadorTarefas() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(threads);
+        scheduler.setThreadNamePrefix("agendador-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        scheduler.setErrorHandler(erro -> logger.error("Falha em tarefa agendada: {}", erro.getMessage(), erro));
+        return scheduler;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(agendadorTarefas());
+    }
+}
@@ -44,9 +44,12 @@ public class AuthChannelInterceptor implements ChannelInterceptor {
                 String authHeader = authorization.get(0);
                 if (authHeader != null && authHeader.startsWith("Bearer ")) {
                     String token = authHeader.substring(7);
-                    if (jwtUtil.validarToken(token)) {
-                        String email = jwtUtil.getEmailDoToken(token);
-                        UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                    // O usuário fica guardado na sessão STOMP: as claims são lidas uma vez, no CONNECT
+                    UserDetails userDetails = jwtUtil.getUsuarioDoToken(token);
+                    if (userDetails == null && jwtUtil.validarToken(token)) {
+                        userDetails = userDetailsService.loadUserByUsername(jwtUtil.getEmailDoToken(token));
+                    }
+                    if (userDetails != null) {
                         UsernamePasswordAuthenticationToken authentication =
                                 new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                         accessor.setUser(authentication);
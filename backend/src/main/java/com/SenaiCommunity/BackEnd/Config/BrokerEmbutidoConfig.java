@@ -0,0 +1,36 @@
+package com.SenaiCommunity.BackEnd.Config;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Broker STOMP (Artemis) no próprio processo, usado quando "websocket.broker.modo=embutido".
+ * Exercita o mesmo caminho do relay externo (registro de usuários compartilhado, destinos /user/...)
+ * em desenvolvimento e testes. Sem persistência e sem autenticação: não usar em produção.
+ */
+@Configuration
+@ConditionalOnProperty(name = "websocket.broker.modo", havingValue = "embutido")
+public class BrokerEmbutidoConfig {
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int porta;
+
+    // Iniciado na criação do bean; o relay só conecta no start do contexto, depois disso
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public EmbeddedActiveMQ brokerStompEmbutido() throws Exception {
+        ConfigurationImpl configuracao = new ConfigurationImpl();
+        configuracao.setPersistenceEnabled(false);
+        configuracao.setSecurityEnabled(false);
+        // /topic -> multicast (todos os inscritos), /queue -> anycast (um consumidor), como no broker simples
+        configuracao.addAcceptorConfiguration("stomp",
+                "tcp://localhost:" + porta + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+
+        EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuracao);
+        return broker;
+    }
+}
@@ -0,0 +1,40 @@
+package com.SenaiCommunity.BackEnd.Config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    // Renderização de cada postagem (sem dados do visualizador), chave = ID da postagem
+    public static final String CACHE_FEED_POSTAGENS = "feed-postagens";
+
+    // IDs da primeira página do mural de cada autor, chave = ID do autor
+    public static final String CACHE_MURAL_PRIMEIRA_PAGINA = "mural-primeira-pagina";
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        // Caches sem configuração própria: limitados para não crescer sem controle no container
+        manager.setCaffeine(Caffeine.newBuilder().maximumSize(1000).expireAfterWrite(Duration.ofMinutes(10)));
+
+        manager.registerCustomCache(CACHE_FEED_POSTAGENS, Caffeine.newBuilder()
+                .maximumSize(2000)
+                .expireAfterWrite(Duration.ofMinutes(10)) // nome/foto do autor podem mudar sem evicção
+                .build());
+
+        manager.registerCustomCache(CACHE_MURAL_PRIMEIRA_PAGINA, Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build());
+
+        // Evicções feitas dentro de uma transação só valem após o commit
+        return new TransactionAwareCacheManagerProxy(manager);
+    }
+}
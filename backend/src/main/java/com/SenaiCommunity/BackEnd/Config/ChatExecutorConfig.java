@@ -0,0 +1,18 @@
+package com.SenaiCommunity.BackEnd.Config;
+
+import com.SenaiCommunity.BackEnd.Service.Util.ExecutorSerialPorChave;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ChatExecutorConfig {
+
+    // Persistência + broadcast das mensagens de chat: em ordem dentro de cada conversa/grupo,
+    // em paralelo entre conversas, fora das threads do clientInboundChannel
+    @Bean(destroyMethod = "encerrar")
+    public ExecutorSerialPorChave executorConversas(@Value("${chat.executor.threads:8}") int threads,
+                                                    @Value("${chat.executor.capacidade-por-conversa:200}") int capacidade) {
+        return new ExecutorSerialPorChave("chat-conversa", threads, capacidade);
+    }
+}
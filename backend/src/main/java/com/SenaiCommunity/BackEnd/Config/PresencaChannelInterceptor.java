@@ -0,0 +1,35 @@
+package com.SenaiCommunity.BackEnd.Config;
+
+import com.SenaiCommunity.BackEnd.Security.UsuarioAtual;
+import com.SenaiCommunity.BackEnd.Service.UserStatusService;
+import com.SenaiCommunity.BackEnd.Service.UsuarioDetailsImpl;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Renova o último sinal da sessão a cada mensagem recebida do cliente, inclusive heartbeats STOMP,
+ * para que o registro de presença expire apenas as sessões realmente mortas.
+ */
+@Component
+public class PresencaChannelInterceptor implements ChannelInterceptor {
+
+    private final UserStatusService userStatusService;
+
+    public PresencaChannelInterceptor(UserStatusService userStatusService) {
+        this.userStatusService = userStatusService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        UsuarioDetailsImpl usuario = UsuarioAtual.de(SimpMessageHeaderAccessor.getUser(message.getHeaders()));
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+
+        if (usuario != null && sessionId != null) {
+            userStatusService.sinal(usuario.getId(), sessionId);
+        }
+        return message;
+    }
+}
@@ -1,24 +1,92 @@
 package com.SenaiCommunity.BackEnd.Config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+/**
+ * STOMP sobre WebSocket. O broker é escolhido por "websocket.broker.modo":
+ * - simples (padrão): broker em memória, válido para uma única instância;
+ * - relay: repassa /topic e /queue a um broker STOMP externo (RabbitMQ, Artemis...), permitindo várias
+ *   instâncias. O registro de usuários é compartilhado entre elas e mensagens para /user/... de um usuário
+ *   conectado em outra instância são reencaminhadas pelo broker;
+ * - embutido: relay apontando para um Artemis iniciado no próprio processo (ver BrokerEmbutidoConfig),
+ *   para testar o modo relay localmente sem infraestrutura externa.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    // Tópicos internos do relay para compartilhar sessões e destinos de usuário entre instâncias
+    private static final String DESTINO_REGISTRO_USUARIOS = "/topic/simp-user-registry";
+    private static final String DESTINO_USUARIO_NAO_RESOLVIDO = "/topic/unresolved-user-destination";
+
+    @Value("${websocket.broker.modo:simples}")
+    private String modoBroker;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.senha:guest}")
+    private String relaySenha;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
     private final AuthChannelInterceptor authChannelInterceptor;
+    private final PresencaChannelInterceptor presencaChannelInterceptor;
+    private TaskScheduler messageBrokerTaskScheduler;
 
-    public WebSocketConfig(AuthChannelInterceptor authChannelInterceptor) {
+    public WebSocketConfig(AuthChannelInterceptor authChannelInterceptor,
+                           PresencaChannelInterceptor presencaChannelInterceptor) {
         this.authChannelInterceptor = authChannelInterceptor;
+        this.presencaChannelInterceptor = presencaChannelInterceptor;
+    }
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("simples".equalsIgnoreCase(modoBroker)) {
+            // Heartbeats de 10s nos dois sentidos: sessões mortas são fechadas pelo broker
+            // e as vivas renovam a presença (ver PresencaChannelInterceptor)
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{10000, 10000})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        } else {
+            boolean embutido = "embutido".equalsIgnoreCase(modoBroker);
+            // No relay os heartbeats do cliente são negociados com o broker externo
+            var relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(embutido ? "localhost" : relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relaySenha)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relaySenha)
+                    .setUserRegistryBroadcast(DESTINO_REGISTRO_USUARIOS)
+                    .setUserDestinationBroadcast(DESTINO_USUARIO_NAO_RESOLVIDO)
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
@@ -45,6 +113,6 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(authChannelInterceptor);
+        registration.interceptors(authChannelInterceptor, presencaChannelInterceptor);
     }
 }
\ No newline at end of file
@@ -1,21 +1,30 @@
 package com.SenaiCommunity.BackEnd.Controller;
 
+import com.SenaiCommunity.BackEnd.DTO.BuscaChatResultadoDTO;
 import com.SenaiCommunity.BackEnd.DTO.ConversaResumoDTO;
 import com.SenaiCommunity.BackEnd.DTO.MensagemGrupoSaidaDTO;
 import com.SenaiCommunity.BackEnd.DTO.MensagemPrivadaSaidaDTO;
-import com.SenaiCommunity.BackEnd.Entity.Usuario;
+import com.SenaiCommunity.BackEnd.DTO.PostagemSaidaDTO;
+import com.SenaiCommunity.BackEnd.Exception.GravacaoPendenteException;
+import com.SenaiCommunity.BackEnd.Service.BuscaChatService;
+import com.SenaiCommunity.BackEnd.Service.ChatLogService.TipoMensagem;
 import com.SenaiCommunity.BackEnd.Service.MensagemGrupoService;
 import com.SenaiCommunity.BackEnd.Service.MensagemPrivadaService;
 import com.SenaiCommunity.BackEnd.Service.PostagemService;
-import com.SenaiCommunity.BackEnd.Service.UsuarioService;
+import com.SenaiCommunity.BackEnd.Service.Util.ExecutorSerialPorChave;
+import com.SenaiCommunity.BackEnd.Security.UsuarioAtual;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 @RestController
@@ -33,15 +42,41 @@ public class ChatRestController {
     private PostagemService postagemService;
 
     @Autowired
-    private UsuarioService usuarioService;
+    private UsuarioAtual usuarioAtual;
+
+    @Autowired
+    private ExecutorSerialPorChave executorConversas;
+
+    @Autowired
+    private BuscaChatService buscaChatService;
+
+    // Fila de envio das mensagens de chat: aceitas, rejeitadas (fila cheia), pendentes e tempo de espera
+    @GetMapping("/executor/metricas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ExecutorSerialPorChave.Metricas> getMetricasExecutor() {
+        return ResponseEntity.ok(executorConversas.metricas());
+    }
 
     @GetMapping("/privado/historico/{amigoId}")
-    public ResponseEntity<List<MensagemPrivadaSaidaDTO>> getMensagensPrivadasComAmigo(@PathVariable Long amigoId, Principal principal) {
-        Usuario usuarioLogado = usuarioService.buscarPorEmail(principal.getName());
-        List<MensagemPrivadaSaidaDTO> historico = mensagemPrivadaService.buscarMensagensPrivadas(usuarioLogado.getId(), amigoId);
+    public ResponseEntity<List<MensagemPrivadaSaidaDTO>> getMensagensPrivadasComAmigo(
+            @PathVariable Long amigoId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int size,
+            Principal principal) {
+        // before = id da mensagem mais antiga já exibida; sem ele retorna as mais recentes
+        List<MensagemPrivadaSaidaDTO> historico = mensagemPrivadaService.buscarMensagensPrivadas(usuarioAtual.getId(), amigoId, before, size);
         return ResponseEntity.ok(historico);
     }
 
+    // Retomada após reconexão: só as mensagens posteriores à última sequência recebida
+    @GetMapping("/privado/{amigoId}/desde")
+    public ResponseEntity<List<MensagemPrivadaSaidaDTO>> getMensagensPrivadasDesde(
+            @PathVariable Long amigoId,
+            @RequestParam long sequencia,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(mensagemPrivadaService.buscarMensagensDesde(usuarioAtual.getId(), amigoId, sequencia, size));
+    }
+
     @GetMapping("/privado/minhas-conversas")
     public ResponseEntity<List<ConversaResumoDTO>> getMinhasConversas(Principal principal) {
         List<ConversaResumoDTO> resumo = mensagemPrivadaService.buscarResumoConversas(principal.getName());
@@ -59,11 +94,70 @@ public class ChatRestController {
         return ResponseEntity.ok(mensagens);
     }
 
+    // Badges dos grupos: mensagens não lidas por projeto (projetoId -> quantidade)
+    @GetMapping("/grupo/nao-lidas")
+    public ResponseEntity<Map<Long, Long>> getNaoLidasPorGrupo() {
+        return ResponseEntity.ok(mensagemGrupoService.contarNaoLidasPorProjeto(usuarioAtual.getId()));
+    }
+
+    // sequencia = última mensagem exibida; sem ela marca o grupo inteiro como lido
+    @PostMapping("/grupo/{projetoId}/marcar-lida")
+    public ResponseEntity<?> marcarGrupoComoLido(
+            @PathVariable Long projetoId,
+            @RequestParam(required = false) Long sequencia) {
+        try {
+            mensagemGrupoService.marcarComoLida(projetoId, usuarioAtual.getId(), sequencia);
+            return ResponseEntity.ok().build();
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Retomada após reconexão: só as mensagens posteriores à última sequência recebida
+    @GetMapping("/grupo/{projetoId}/desde")
+    public ResponseEntity<?> getMensagensDoGrupoDesde(
+            @PathVariable Long projetoId,
+            @RequestParam long sequencia,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            return ResponseEntity.ok(mensagemGrupoService.buscarMensagensDesde(projetoId, usuarioAtual.getId(), sequencia, size));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Busca no histórico das conversas privadas e dos grupos do usuário (sem diferenciar acentos)
+    @GetMapping("/busca")
+    public ResponseEntity<BuscaChatResultadoDTO> buscarNoHistorico(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int size) {
+        Long usuarioId = usuarioAtual.getId();
+        List<BuscaChatService.Ocorrencia> ocorrencias = buscaChatService.buscar(usuarioId, q, size);
+
+        List<Long> privadas = ocorrencias.stream()
+                .filter(o -> o.tipo() == TipoMensagem.PRIVADA).map(BuscaChatService.Ocorrencia::id).toList();
+        List<Long> grupos = ocorrencias.stream()
+                .filter(o -> o.tipo() == TipoMensagem.GRUPO).map(BuscaChatService.Ocorrencia::id).toList();
+
+        return ResponseEntity.ok(BuscaChatResultadoDTO.builder()
+                .privadas(mensagemPrivadaService.buscarPorIds(usuarioId, privadas))
+                .grupos(mensagemGrupoService.buscarPorIds(grupos))
+                .build());
+    }
+
     @GetMapping("/publico")
-    public ResponseEntity<?> getPostagensPublicas() {
+    public ResponseEntity<?> getPostagensPublicas(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorData,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "10") int size
+    ) {
         try {
-            // Tenta buscar as postagens
-            return ResponseEntity.ok(postagemService.buscarPostagensPublicas());
+            // Cursor = (dataCriacao, id) da última postagem recebida; sem cursor retorna a primeira página
+            return ResponseEntity.ok(postagemService.buscarPostagensPublicas(cursorData, cursorId, size));
         } catch (Exception e) {
             // Se der erro, imprime no console do Railway para sabermos o motivo
             e.printStackTrace();
@@ -71,9 +165,18 @@ public class ChatRestController {
         }
     }
 
+    @GetMapping("/amigos")
+    public ResponseEntity<List<PostagemSaidaDTO>> getFeedAmigos(
+            @RequestParam(required = false) Long antesDe,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        // Cursor = id da última postagem recebida; sem cursor retorna a primeira página
+        return ResponseEntity.ok(postagemService.buscarFeedAmigos(antesDe, size));
+    }
+
     @GetMapping("/privado/nao-lidas/contagem")
     public ResponseEntity<Long> getContagemNaoLidas(Principal principal) {
-        long contagem = mensagemPrivadaService.contarMensagensNaoLidas(principal.getName());
+        long contagem = mensagemPrivadaService.contarMensagensNaoLidas(usuarioAtual.getId());
         return ResponseEntity.ok(contagem);
     }
 
@@ -84,6 +187,8 @@ public class ChatRestController {
             return ResponseEntity.ok().build();
         } catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
+        } catch (GravacaoPendenteException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
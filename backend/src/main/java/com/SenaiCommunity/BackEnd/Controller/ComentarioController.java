@@ -75,6 +75,31 @@ public class ComentarioController {
         @Autowired
         private SimpMessagingTemplate messagingTemplate;
 
+        // Thread da postagem: comentários de primeiro nível (o cursor é o 'destacado' e o 'id' do último recebido)
+        @GetMapping("/postagem/{postagemId}")
+        public ResponseEntity<?> listarComentarios(@PathVariable Long postagemId,
+                                                   @RequestParam(required = false) Boolean cursorDestacado,
+                                                   @RequestParam(required = false) Long cursorId,
+                                                   @RequestParam(defaultValue = "10") int size) {
+            try {
+                return ResponseEntity.ok(comentarioService.listarComentarios(postagemId, cursorDestacado, cursorId, size));
+            } catch (EntityNotFoundException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+        }
+
+        // Respostas de um comentário (o cursor é o 'id' da última resposta recebida)
+        @GetMapping("/{id}/respostas")
+        public ResponseEntity<?> listarRespostas(@PathVariable Long id,
+                                                 @RequestParam(required = false) Long cursorId,
+                                                 @RequestParam(defaultValue = "10") int size) {
+            try {
+                return ResponseEntity.ok(comentarioService.listarRespostas(id, cursorId, size));
+            } catch (EntityNotFoundException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+        }
+
         @PutMapping("/{id}/destacar")
         public ResponseEntity<?> destacarComentario(@PathVariable Long id, Principal principal) {
             try {
@@ -1,14 +1,11 @@
 package com.SenaiCommunity.BackEnd.Controller;
 
 import com.SenaiCommunity.BackEnd.DTO.CurtidaEntradaDTO;
-import com.SenaiCommunity.BackEnd.Entity.Usuario;
 import com.SenaiCommunity.BackEnd.Service.CurtidaService;
-import com.SenaiCommunity.BackEnd.Service.UsuarioService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -27,12 +24,6 @@ public class CurtidaController {
     @Autowired
     private CurtidaService curtidaService;
 
-    @Autowired
-    private UsuarioService usuarioService;
-
-    @Autowired
-    private SimpMessagingTemplate messagingTemplate;
-
     // Cache simples para Rate Limiting (Chave: UsuarioID+PostID, Valor: Timestamp)
     private final Map<String, Long> rateLimitCache = new ConcurrentHashMap<>();
 
@@ -53,18 +44,9 @@ public class CurtidaController {
 
             rateLimitCache.put(spamKey, currentTime);
 
-            Long postagemIdParaNotificar = curtidaService.toggleCurtida(principal.getName(), dto.getPostagemId(), dto.getComentarioId());
-
-            Usuario autorDaAcao = usuarioService.buscarPorEmail(principal.getName());
-
-            if (postagemIdParaNotificar != null) {
-                Map<String, Object> payload = Map.of(
-                        "tipo", "atualizacao_curtida",
-                        "id", postagemIdParaNotificar,
-                        "autorAcaoId", autorDaAcao.getId()
-                );
-                messagingTemplate.convertAndSend("/topic/publico", payload);
-            }
+            // O aviso "atualizacao_curtida" em /topic/publico é enviado pelo flush do buffer,
+            // quando os contadores já refletem a mudança
+            curtidaService.toggleCurtida(principal.getName(), dto.getPostagemId(), dto.getComentarioId());
 
             return ResponseEntity.ok().build();
         } catch (EntityNotFoundException e) {
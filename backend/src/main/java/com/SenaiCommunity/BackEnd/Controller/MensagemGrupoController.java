@@ -5,6 +5,8 @@ import com.SenaiCommunity.BackEnd.DTO.MensagemGrupoSaidaDTO;
 import com.SenaiCommunity.BackEnd.Entity.MensagemGrupo;
 import com.SenaiCommunity.BackEnd.Exception.ConteudoImproprioException;
 import com.SenaiCommunity.BackEnd.Service.MensagemGrupoService;
+import com.SenaiCommunity.BackEnd.Service.Util.ExecutorSerialPorChave;
+import com.SenaiCommunity.BackEnd.Service.Util.JanelaDeduplicacao;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +22,7 @@ import java.security.Principal;
 import org.springframework.data.domain.Page;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @PreAuthorize("hasRole('ALUNO') or hasRole('PROFESSOR') or hasRole('ADMIN')")
@@ -33,25 +36,42 @@ public class MensagemGrupoController {
     @Autowired
     private MensagemGrupoService mensagemGrupoService;
 
+    @Autowired
+    private ExecutorSerialPorChave executorConversas;
+
     @MessageMapping("/grupo/{projetoId}")
     public void enviarParaGrupo(@DestinationVariable Long projetoId,
                                 @Payload MensagemGrupoEntradaDTO dto,
                                 Principal principal) {
-        try {
-            System.out.println("Recebendo mensagem via WebSocket para projeto " + projetoId + " de " + principal.getName());
-
-            MensagemGrupoSaidaDTO dtoSalvo = mensagemGrupoService.salvarMensagemGrupo(dto, projetoId, principal.getName());
-
-            System.out.println("Mensagem salva com ID: " + dtoSalvo.getId() + ", enviando para tópico...");
-
-            messagingTemplate.convertAndSend("/topic/grupo/" + projetoId, dtoSalvo);
+        // Gravação e broadcast em série por grupo, fora da thread de entrada do WebSocket
+        boolean aceita = executorConversas.executar("grupo:" + projetoId, () -> {
+            try {
+                System.out.println("Recebendo mensagem via WebSocket para projeto " + projetoId + " de " + principal.getName());
+
+                JanelaDeduplicacao.Resultado<MensagemGrupoSaidaDTO> envio = mensagemGrupoService.salvarMensagemGrupo(dto, projetoId, principal.getName());
+                MensagemGrupoSaidaDTO dtoSalvo = envio.valor();
+
+                if (envio.repetido()) {
+                    // Retentativa: o grupo já recebeu; só o autor recebe a confirmação de novo
+                    messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/usuario", dtoSalvo);
+                    return;
+                }
+
+                System.out.println("Mensagem salva com ID: " + dtoSalvo.getId() + ", enviando para tópico...");
+
+                messagingTemplate.convertAndSend("/topic/grupo/" + projetoId, dtoSalvo);
+
+            } catch (ConteudoImproprioException e) {
+                System.err.println("Conteúdo impróprio: " + e.getMessage());
+                messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", e.getMessage());
+            } catch (Exception e) {
+                System.err.println("Erro ao processar mensagem: " + e.getMessage());
+                messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", "Não foi possível enviar a mensagem: " + e.getMessage());
+            }
+        });
 
-        } catch (ConteudoImproprioException e) {
-            System.err.println("Conteúdo impróprio: " + e.getMessage());
-            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", e.getMessage());
-        } catch (Exception e) {
-            System.err.println("Erro ao processar mensagem: " + e.getMessage());
-            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", "Não foi possível enviar a mensagem: " + e.getMessage());
+        if (!aceita) {
+            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", "Muitas mensagens em sequência. Tente novamente em instantes.");
         }
     }
 
@@ -71,15 +91,32 @@ public class MensagemGrupoController {
     }
 
     @PostMapping("/projeto/{projetoId}")
-    public ResponseEntity<?> enviarMensagem(@PathVariable Long projetoId,
-                                            @RequestBody MensagemGrupoEntradaDTO dto,
-                                            Principal principal) {
+    public CompletableFuture<ResponseEntity<?>> enviarMensagem(@PathVariable Long projetoId,
+                                                               @RequestBody MensagemGrupoEntradaDTO dto,
+                                                               Principal principal) {
+        // Mesma fila por grupo do envio via WebSocket: a ordem do broadcast segue a da sequência
+        CompletableFuture<ResponseEntity<?>> resposta = new CompletableFuture<>();
+        boolean aceita = executorConversas.executar("grupo:" + projetoId,
+                () -> resposta.complete(gravarEPublicar(projetoId, dto, principal)));
+
+        if (!aceita) {
+            resposta.complete(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("Muitas mensagens em sequência. Tente novamente em instantes."));
+        }
+        return resposta;
+    }
+
+    private ResponseEntity<?> gravarEPublicar(Long projetoId, MensagemGrupoEntradaDTO dto, Principal principal) {
         try {
             System.out.println("Recebendo mensagem via REST para projeto " + projetoId + " de " + principal.getName());
 
-            MensagemGrupoSaidaDTO mensagemSalva = mensagemGrupoService.salvarMensagemGrupo(dto, projetoId, principal.getName());
+            JanelaDeduplicacao.Resultado<MensagemGrupoSaidaDTO> envio = mensagemGrupoService.salvarMensagemGrupo(dto, projetoId, principal.getName());
+            MensagemGrupoSaidaDTO mensagemSalva = envio.valor();
 
-            messagingTemplate.convertAndSend("/topic/grupo/" + projetoId, mensagemSalva);
+            // Retentativa: devolve a mensagem original sem publicar de novo no tópico
+            if (!envio.repetido()) {
+                messagingTemplate.convertAndSend("/topic/grupo/" + projetoId, mensagemSalva);
+            }
 
             return ResponseEntity.ok(mensagemSalva);
         } catch (ConteudoImproprioException e) {
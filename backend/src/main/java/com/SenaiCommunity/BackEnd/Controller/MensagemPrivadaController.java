@@ -2,9 +2,14 @@ package com.SenaiCommunity.BackEnd.Controller;
 
 import com.SenaiCommunity.BackEnd.DTO.MensagemPrivadaEntradaDTO;
 import com.SenaiCommunity.BackEnd.DTO.MensagemPrivadaSaidaDTO;
+import com.SenaiCommunity.BackEnd.Entity.MensagemPrivada;
 import com.SenaiCommunity.BackEnd.Exception.ConteudoImproprioException;
+import com.SenaiCommunity.BackEnd.Exception.GravacaoPendenteException;
+import com.SenaiCommunity.BackEnd.Security.UsuarioAtual;
 import com.SenaiCommunity.BackEnd.Service.ArquivoMidiaService;
 import com.SenaiCommunity.BackEnd.Service.MensagemPrivadaService;
+import com.SenaiCommunity.BackEnd.Service.Util.ExecutorSerialPorChave;
+import com.SenaiCommunity.BackEnd.Service.Util.JanelaDeduplicacao;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -32,24 +37,37 @@ public class MensagemPrivadaController {
     @Autowired
     private MensagemPrivadaService mensagemPrivadaService;
 
+    @Autowired
+    private ExecutorSerialPorChave executorConversas;
+
     @MessageMapping("/privado/{destinatarioId}")
     public void enviarPrivado(@DestinationVariable Long destinatarioId,
                               @Payload MensagemPrivadaEntradaDTO dto,
                               Principal principal) {
-        try {
-            dto.setDestinatarioId(destinatarioId);
-            MensagemPrivadaSaidaDTO dtoSalvo = mensagemPrivadaService.salvarMensagemPrivada(dto, principal.getName());
-
-            messagingTemplate.convertAndSendToUser(dtoSalvo.getDestinatarioEmail(), "/queue/usuario", dtoSalvo);
-            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/usuario", dtoSalvo);
-
-            long novaContagem = mensagemPrivadaService.contarMensagensNaoLidas(dtoSalvo.getDestinatarioEmail());
-            messagingTemplate.convertAndSendToUser(dtoSalvo.getDestinatarioEmail(), "/queue/contagem", novaContagem);
+        // Gravação e entrega em série por conversa, fora da thread de entrada do WebSocket
+        String chave = "privado:" + MensagemPrivada.chaveConversa(UsuarioAtual.de(principal).getId(), destinatarioId);
+        boolean aceita = executorConversas.executar(chave, () -> {
+            try {
+                dto.setDestinatarioId(destinatarioId);
+                JanelaDeduplicacao.Resultado<MensagemPrivadaSaidaDTO> envio = mensagemPrivadaService.salvarMensagemPrivada(dto, principal.getName());
+                MensagemPrivadaSaidaDTO dtoSalvo = envio.valor();
+
+                // Retentativa: o destinatário já recebeu; só o remetente recebe a confirmação de novo
+                if (!envio.repetido()) {
+                    messagingTemplate.convertAndSendToUser(dtoSalvo.getDestinatarioEmail(), "/queue/usuario", dtoSalvo);
+                }
+                messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/usuario", dtoSalvo);
+                // A nova contagem de não lidas do destinatário é enviada pelo serviço, após o commit
+
+            } catch (ConteudoImproprioException e) {
+                messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", e.getMessage());
+            } catch (Exception e) {
+                messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", "Não foi possível enviar a mensagem.");
+            }
+        });
 
-        } catch (ConteudoImproprioException e) {
-            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", e.getMessage());
-        } catch (Exception e) {
-            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", "Não foi possível enviar a mensagem.");
+        if (!aceita) {
+            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", "Muitas mensagens em sequência. Tente novamente em instantes.");
         }
     }
 
@@ -60,6 +78,8 @@ public class MensagemPrivadaController {
             mensagemPrivadaService.excluirConversaInteira(principal.getName(), id);
             // Notifica remoção via socket se necessário, ou deixa o front atualizar
             return ResponseEntity.ok().build();
+        } catch (GravacaoPendenteException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -5,6 +5,7 @@ import com.SenaiCommunity.BackEnd.DTO.PostagemSaidaDTO;
 import com.SenaiCommunity.BackEnd.Service.PostagemService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -14,6 +15,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -65,6 +67,11 @@ public class PostagemController {
         }
     }
 
+    @GetMapping("/trending")
+    public ResponseEntity<List<PostagemSaidaDTO>> buscarPostagensEmAlta(@RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(postagemService.buscarPostagensEmAlta(size));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PostagemSaidaDTO> buscarPostagemPorId(@PathVariable Long id) {
         try {
@@ -80,9 +87,14 @@ public class PostagemController {
     }
 
     @GetMapping("/usuario/{usuarioId}")
-    public ResponseEntity<List<PostagemSaidaDTO>> buscarPostagensPorUsuario(@PathVariable Long usuarioId) {
-
-        List<PostagemSaidaDTO> postagens = postagemService.buscarPostagensPorUsuario(usuarioId);
+    public ResponseEntity<List<PostagemSaidaDTO>> buscarPostagensPorUsuario(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorData,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "10") int size) {
+
+        // Cursor = (dataCriacao, id) da última postagem recebida; sem cursor retorna a primeira página
+        List<PostagemSaidaDTO> postagens = postagemService.buscarPostagensPorUsuario(usuarioId, cursorData, cursorId, size);
         return ResponseEntity.ok(postagens);
     }
 
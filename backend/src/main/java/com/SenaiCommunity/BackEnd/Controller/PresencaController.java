@@ -0,0 +1,38 @@
+package com.SenaiCommunity.BackEnd.Controller;
+
+import com.SenaiCommunity.BackEnd.Security.UsuarioAtual;
+import com.SenaiCommunity.BackEnd.Service.PresencaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+import java.util.Map;
+
+@Controller
+@PreAuthorize("hasRole('ALUNO') or hasRole('PROFESSOR') or hasRole('ADMIN')")
+public class PresencaController {
+
+    @Autowired
+    private PresencaService presencaService;
+
+    @Autowired
+    private UsuarioAtual usuarioAtual;
+
+    // Snapshot inicial: a resposta vai direto para quem se inscreveu em /app/status/amigos.
+    // Depois disso o cliente acompanha as mudanças em /user/queue/status.
+    @SubscribeMapping("/status/amigos")
+    public Map<String, Object> snapshotAmigosOnline() {
+        List<String> online = presencaService.amigosOnline(usuarioAtual.getId());
+        return Map.of("tipo", "snapshot", "online", online);
+    }
+
+    // Snapshot dos participantes online do projeto; as mudanças chegam em /topic/grupo/{projetoId}/status
+    @SubscribeMapping("/status/projeto/{projetoId}")
+    public Map<String, Object> snapshotMembrosOnline(@DestinationVariable Long projetoId) {
+        List<String> online = presencaService.membrosOnline(projetoId, usuarioAtual.getId());
+        return Map.of("tipo", "snapshot", "online", online);
+    }
+}
@@ -382,4 +382,18 @@ public class ProjetoController {
         }
     }
 
+    // Modo canal grande (turma/curso inteiro): só administradores da plataforma
+    @PutMapping("/{projetoId}/canal-grande")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> definirCanalGrande(
+            @PathVariable Long projetoId,
+            @RequestParam boolean ativo) {
+        try {
+            projetoService.definirCanalGrande(projetoId, ativo);
+            return ResponseEntity.ok(Map.of("message", ativo ? "Modo canal grande ativado." : "Modo canal grande desativado."));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
 }
@@ -0,0 +1,15 @@
+package com.SenaiCommunity.BackEnd.DTO;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BuscaChatResultadoDTO {
+
+    // Das mais recentes para as mais antigas
+    private List<MensagemPrivadaSaidaDTO> privadas;
+    private List<MensagemGrupoSaidaDTO> grupos;
+}
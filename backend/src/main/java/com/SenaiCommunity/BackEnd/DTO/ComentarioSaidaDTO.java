@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ComentarioSaidaDTO {
     private Long id;
     private String conteudo;
@@ -19,5 +19,6 @@ public class ComentarioSaidaDTO {
     private boolean destacado;
     private String replyingToName; // Nome do autor do comentário pai
     private int totalCurtidas;
+    private long totalRespostas;
     private boolean curtidoPeloUsuario;
 }
\ No newline at end of file
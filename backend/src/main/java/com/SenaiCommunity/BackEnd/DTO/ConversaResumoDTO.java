@@ -18,4 +18,7 @@ public class ConversaResumoDTO {
     private String conteudoUltimaMensagem;
     private LocalDateTime dataEnvioUltimaMensagem;
     private Long remetenteUltimaMensagemId;
+
+    // Mensagens do outro usuário ainda não lidas pelo usuário logado
+    private int naoLidas;
 }
\ No newline at end of file
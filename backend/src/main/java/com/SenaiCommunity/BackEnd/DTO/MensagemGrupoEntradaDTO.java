@@ -14,6 +14,9 @@ public class MensagemGrupoEntradaDTO {
 
     private List<AnexoDTO> anexos;
 
+    // Opcional: chave única do envio gerada pelo cliente (ex.: UUID), repetida nas retentativas
+    private String idMensagemCliente;
+
     public static class AnexoDTO {
         private String url;
         private String type;
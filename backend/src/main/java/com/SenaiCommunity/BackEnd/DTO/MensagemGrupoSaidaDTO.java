@@ -15,12 +15,14 @@ import java.util.List;
 public class MensagemGrupoSaidaDTO {
 
     private Long id;
+    private Long sequencia;
     private String conteudo;
     private LocalDateTime dataEnvio;
     private Long grupoId;
     private Long autorId;
     private String nomeAutor;
     private String urlFotoAutor;
+    private String idMensagemCliente;
 
     private List<AnexoDTO> anexos;
 
@@ -9,4 +9,7 @@ public class MensagemPrivadaEntradaDTO {
 
     private String conteudo;
     private Long destinatarioId;
+
+    // Opcional: chave única do envio gerada pelo cliente (ex.: UUID), repetida nas retentativas
+    private String idMensagemCliente;
 }
\ No newline at end of file
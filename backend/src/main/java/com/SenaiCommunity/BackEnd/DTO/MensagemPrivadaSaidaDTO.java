@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 public class MensagemPrivadaSaidaDTO {
 
     private Long id;
+    private Long sequencia;
     private String conteudo;
     private LocalDateTime dataEnvio;
     private Long remetenteId;
@@ -19,4 +20,5 @@ public class MensagemPrivadaSaidaDTO {
     private boolean lida = false;
     private String destinatarioEmail;
     private String remetenteEmail;
+    private String idMensagemCliente;
 }
\ No newline at end of file
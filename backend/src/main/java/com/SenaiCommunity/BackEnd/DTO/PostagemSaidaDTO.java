@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class PostagemSaidaDTO {
 
     private Long id;
@@ -21,5 +21,6 @@ public class PostagemSaidaDTO {
     private String urlFotoAutor;
     private List<ComentarioSaidaDTO> comentarios;
     private int totalCurtidas;
+    private int totalComentarios;
     private boolean curtidoPeloUsuario;
 }
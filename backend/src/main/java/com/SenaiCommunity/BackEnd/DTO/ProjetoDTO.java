@@ -20,6 +20,7 @@ public class ProjetoDTO {
     private LocalDateTime dataCriacao;
     private Integer maxMembros;
     private Boolean grupoPrivado;
+    private Boolean canalGrande;
     private Integer totalMembros;
     private String categoria;
     private List<String> tecnologias;
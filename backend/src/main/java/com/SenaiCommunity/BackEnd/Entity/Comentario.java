@@ -13,6 +13,10 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_comentario_postagem_raiz", columnList = "postagem_id, parent_id, destacado, id"),
+        @Index(name = "idx_comentario_parent_id", columnList = "parent_id, id")
+})
 public class Comentario {
 
     @Id
@@ -56,4 +60,9 @@ public class Comentario {
     @EqualsAndHashCode.Exclude // CORREÇÃO: Evita loop infinito com Curtidas
     private Set<Curtida> curtidas;
 
+    // Contador desnormalizado: alterado apenas via UPDATE atômico no repositório
+    @Column(nullable = false, updatable = false, columnDefinition = "int default 0")
+    @Builder.Default
+    private int totalCurtidas = 0;
+
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.SenaiCommunity.BackEnd.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resumo materializado de uma conversa privada, uma linha por par de usuários.
+ * O par é canônico: usuarioMenor tem sempre o menor ID. Mantido pelo {@code ConversaService}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "conversa",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_conversa_par", columnNames = {"usuario_menor_id", "usuario_maior_id"})
+        },
+        indexes = {
+                @Index(name = "idx_conversa_menor_data", columnList = "usuario_menor_id, data_ultima_mensagem"),
+                @Index(name = "idx_conversa_maior_data", columnList = "usuario_maior_id, data_ultima_mensagem")
+        }
+)
+public class Conversa {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_menor_id", nullable = false)
+    @ToString.Exclude
+    private Usuario usuarioMenor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_maior_id", nullable = false)
+    @ToString.Exclude
+    private Usuario usuarioMaior;
+
+    @Column(name = "ultima_mensagem_id")
+    private Long ultimaMensagemId;
+
+    @Column(name = "previa_ultima_mensagem", length = 255)
+    private String previaUltimaMensagem;
+
+    @Column(name = "data_ultima_mensagem")
+    private LocalDateTime dataUltimaMensagem;
+
+    @Column(name = "remetente_ultima_mensagem_id")
+    private Long remetenteUltimaMensagemId;
+
+    // Mensagens não lidas por cada lado da conversa
+    @Column(name = "nao_lidas_menor", nullable = false)
+    private int naoLidasMenor;
+
+    @Column(name = "nao_lidas_maior", nullable = false)
+    private int naoLidasMaior;
+}
@@ -7,6 +7,8 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -19,6 +21,11 @@ import lombok.Setter;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+// Únicas: um usuário curte cada alvo no máximo uma vez (o flush do buffer usa INSERT IGNORE)
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_curtida_usuario_postagem", columnNames = {"usuario_id", "postagem_id"}),
+        @UniqueConstraint(name = "uk_curtida_usuario_comentario", columnNames = {"usuario_id", "comentario_id"})
+})
 public class Curtida {
 
     @Id
@@ -13,7 +13,9 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(indexes = {
-        @Index(name = "idx_msg_grupo_projeto_data", columnList = "projeto_id, dataEnvio")
+        @Index(name = "idx_msg_grupo_projeto_data", columnList = "projeto_id, dataEnvio"),
+        @Index(name = "idx_msg_grupo_projeto_sequencia", columnList = "projeto_id, sequencia"),
+        @Index(name = "uk_msg_grupo_autor_id_cliente", columnList = "autor_id, id_mensagem_cliente", unique = true)
 })
 public class MensagemGrupo {
 
@@ -34,6 +36,13 @@ public class MensagemGrupo {
 
     private LocalDateTime dataEnvio = LocalDateTime.now();
 
+    // Número crescente dentro do grupo: o cliente retoma a partir do último que recebeu
+    private Long sequencia;
+
+    // Chave gerada pelo cliente para o envio: retentativas com a mesma chave não duplicam a mensagem
+    @Column(name = "id_mensagem_cliente", length = 64)
+    private String idMensagemCliente;
+
     @Transient // não persistido diretamente no banco
     private String autorUsername;
 
@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
 
 @Table(name = "mensagem_privada", indexes = {
         @Index(name = "idx_msg_remetente", columnList = "remetente_id"),
-        @Index(name = "idx_msg_destinatario", columnList = "destinatario_id")
+        @Index(name = "idx_msg_destinatario", columnList = "destinatario_id"),
+        @Index(name = "idx_msg_conversa_id", columnList = "conversa_key, id"),
+        @Index(name = "idx_msg_conversa_sequencia", columnList = "conversa_key, sequencia"),
+        @Index(name = "uk_msg_remetente_id_cliente", columnList = "remetente_id, id_mensagem_cliente", unique = true)
 })
 public class MensagemPrivada {
 
@@ -39,4 +42,26 @@ public class MensagemPrivada {
 
     @Column(nullable = false)
     private boolean lida = false;
+
+    // Par canônico "menorId_maiorId": o histórico da conversa vira um range scan em (conversa_key, id)
+    @Column(name = "conversa_key", length = 41)
+    private String conversaKey;
+
+    // Número crescente dentro da conversa: o cliente retoma a partir do último que recebeu
+    private Long sequencia;
+
+    // Chave gerada pelo cliente para o envio: retentativas com a mesma chave não duplicam a mensagem
+    @Column(name = "id_mensagem_cliente", length = 64)
+    private String idMensagemCliente;
+
+    @PrePersist
+    private void definirConversaKey() {
+        if (conversaKey == null && remetente != null && destinatario != null) {
+            conversaKey = chaveConversa(remetente.getId(), destinatario.getId());
+        }
+    }
+
+    public static String chaveConversa(Long usuarioA, Long usuarioB) {
+        return Math.min(usuarioA, usuarioB) + "_" + Math.max(usuarioA, usuarioB);
+    }
 }
\ No newline at end of file
@@ -13,6 +13,10 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_postagem_data_id", columnList = "dataPostagem, id"),
+        @Index(name = "idx_postagem_autor_data_id", columnList = "autor_id, dataPostagem, id")
+})
 public class Postagem {
 
     @Id
@@ -49,4 +53,13 @@ public class Postagem {
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
     private Set<Curtida> curtidas;
+
+    // Contadores desnormalizados: alterados apenas via UPDATE atômico no repositório
+    @Column(nullable = false, updatable = false, columnDefinition = "int default 0")
+    @Builder.Default
+    private int totalCurtidas = 0;
+
+    @Column(nullable = false, updatable = false, columnDefinition = "int default 0")
+    @Builder.Default
+    private int totalComentarios = 0;
 }
\ No newline at end of file
@@ -31,6 +31,7 @@ public class Projeto {
     private LocalDateTime dataCriacao;
     private Integer maxMembros = 50; // Limite de membros no grupo
     private Boolean grupoPrivado = false; // Se true, apenas por convite
+    private Boolean canalGrande = false; // Canal de turma/curso: limite de membros próprio (milhares)
     private String categoria;
     private String videoDescricaoUrl;
 
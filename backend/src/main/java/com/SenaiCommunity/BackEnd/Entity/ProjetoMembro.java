@@ -34,6 +34,10 @@ public class ProjetoMembro {
 
     private LocalDateTime dataEntrada;
 
+    // Cursor de leitura do chat do grupo: sequência da última mensagem lida (iniciado na entrada;
+    // null só em membros anteriores à coluna, até a inicialização preenchê-lo)
+    private Long ultimaSequenciaLida;
+
     @ManyToOne
     @JoinColumn(name = "convidado_por_id")
     private Usuario convidadoPor;
@@ -0,0 +1,11 @@
+package com.SenaiCommunity.BackEnd.Exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class GravacaoPendenteException extends RuntimeException {
+    public GravacaoPendenteException(String message) {
+        super(message);
+    }
+}
@@ -1,18 +1,20 @@
 package com.SenaiCommunity.BackEnd.Listeners;
 
+import com.SenaiCommunity.BackEnd.Security.UsuarioAtual;
+import com.SenaiCommunity.BackEnd.Service.PresencaService;
 import com.SenaiCommunity.BackEnd.Service.UserStatusService;
+import com.SenaiCommunity.BackEnd.Service.UsuarioDetailsImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
-import java.security.Principal;
-
 @Component
 public class WebSocketEventListener {
 
@@ -22,39 +24,52 @@ public class WebSocketEventListener {
     private UserStatusService userStatusService;
 
     @Autowired
-    private SimpMessageSendingOperations messagingTemplate;
+    private PresencaService presencaService;
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-        Principal userPrincipal = headerAccessor.getUser();
+        UsuarioDetailsImpl usuario = UsuarioAtual.de(headerAccessor.getUser());
 
-        if (userPrincipal != null) {
-            String email = userPrincipal.getName();
-            logger.info("Usuário conectado: {}", email);
+        if (usuario != null) {
+            String email = usuario.getUsername();
+            logger.info("Usuário conectado: {} (sessão {})", email, headerAccessor.getSessionId());
 
-            // 1. Adiciona o usuário na lista de online
-            userStatusService.addUser(email);
+            // 1. Registra a sessão; só a primeira sessão do usuário é uma mudança de presença
+            boolean ficouOnline = userStatusService.conectar(
+                    usuario.getId(), email, headerAccessor.getSessionId(), clienteEnviaHeartbeat(headerAccessor));
 
-            // 2. Envia a lista ATUALIZADA para TODOS os inscritos no tópico /topic/status
-            messagingTemplate.convertAndSend("/topic/status", userStatusService.getOnlineUsers());
+            // 2. Os amigos recebem a mudança no próximo tick (não o conjunto inteiro de online)
+            if (ficouOnline) {
+                presencaService.registrarMudanca(usuario.getId(), email);
+            }
         }
     }
 
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-        Principal userPrincipal = headerAccessor.getUser();
+        UsuarioDetailsImpl usuario = UsuarioAtual.de(headerAccessor.getUser());
 
-        if (userPrincipal != null) {
-            String email = userPrincipal.getName();
-            logger.info("Usuário desconectado: {}", email);
+        if (usuario != null) {
+            String email = usuario.getUsername();
+            logger.info("Usuário desconectado: {} (sessão {})", email, event.getSessionId());
 
-            // 1. Remove o usuário
-            userStatusService.removeUser(email);
+            // 1. Remove a sessão; o usuário só fica offline quando a última sessão sai
+            boolean ficouOffline = userStatusService.desconectar(usuario.getId(), event.getSessionId());
 
-            // 2. Envia a lista ATUALIZADA para TODOS
-            messagingTemplate.convertAndSend("/topic/status", userStatusService.getOnlineUsers());
+            // 2. Os amigos recebem a mudança no próximo tick
+            if (ficouOffline) {
+                presencaService.registrarMudanca(usuario.getId(), email);
+            }
         }
     }
-}
\ No newline at end of file
+
+    // Heartbeat negociado no CONNECT: o primeiro valor é o intervalo com que o cliente envia (0 = não envia)
+    private boolean clienteEnviaHeartbeat(StompHeaderAccessor connectAck) {
+        Message<?> connect = (Message<?>) connectAck.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        if (connect == null) return false;
+        long[] heartbeat = StompHeaderAccessor.wrap(connect).getHeartbeat();
+        return heartbeat != null && heartbeat.length > 0 && heartbeat[0] > 0;
+    }
+}
@@ -26,6 +26,11 @@ public interface AmizadeRepository extends JpaRepository<Amizade, Long> {
     @Query("SELECT a FROM Amizade a WHERE (a.solicitante = ?1 OR a.solicitado = ?1) AND a.status = 'ACEITO'")
     List<Amizade> findAmigosByUsuario(Usuario usuario);
 
+    // IDs dos amigos (status ACEITO), sem carregar as entidades
+    @Query("SELECT CASE WHEN a.solicitante.id = :usuarioId THEN a.solicitado.id ELSE a.solicitante.id END " +
+            "FROM Amizade a WHERE (a.solicitante.id = :usuarioId OR a.solicitado.id = :usuarioId) AND a.status = 'ACEITO'")
+    List<Long> findIdsAmigos(@Param("usuarioId") Long usuarioId);
+
     // Lista todas as solicitações pendentes feitas por um usuário
     List<Amizade> findBySolicitanteAndStatus(Usuario solicitante, StatusAmizade status);
 }
\ No newline at end of file
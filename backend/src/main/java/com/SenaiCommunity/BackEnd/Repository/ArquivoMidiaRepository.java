@@ -2,11 +2,18 @@ package com.SenaiCommunity.BackEnd.Repository;
 
 import com.SenaiCommunity.BackEnd.Entity.ArquivoMidia;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ArquivoMidiaRepository extends JpaRepository<ArquivoMidia, Long> {
     List<ArquivoMidia> findByPostagemId(Long postagemId);
+
+    // Anexos de várias mensagens de grupo numa consulta só. Retorna [mensagemId, url, tipo]
+    @Query("SELECT a.mensagemGrupo.id, a.url, a.tipo FROM ArquivoMidia a WHERE a.mensagemGrupo.id IN :mensagemIds ORDER BY a.id")
+    List<Object[]> findAnexosDeMensagensGrupo(@Param("mensagemIds") Collection<Long> mensagemIds);
 }
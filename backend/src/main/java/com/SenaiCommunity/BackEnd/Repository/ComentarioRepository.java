@@ -1,8 +1,86 @@
 package com.SenaiCommunity.BackEnd.Repository;
 
 import com.SenaiCommunity.BackEnd.Entity.Comentario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface ComentarioRepository extends JpaRepository<Comentario, Long> { }
+public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
+
+    @Query("SELECT c.postagem.id FROM Comentario c WHERE c.id = :comentarioId")
+    Optional<Long> findPostagemIdByComentarioId(@Param("comentarioId") Long comentarioId);
+
+    @Query("SELECT c FROM Comentario c JOIN FETCH c.autor WHERE c.id IN :ids")
+    List<Comentario> findComAutorByIdIn(@Param("ids") Collection<Long> ids);
+
+    // --- THREAD PAGINADA POR CURSOR ---
+    // Comentários de primeiro nível: destacados primeiro, depois em ordem de criação (cursor = destacado, id)
+    @Query("SELECT c FROM Comentario c JOIN FETCH c.autor " +
+            "WHERE c.postagem.id = :postagemId AND c.parent IS NULL " +
+            "ORDER BY c.destacado DESC, c.id ASC")
+    List<Comentario> findRaizes(@Param("postagemId") Long postagemId, Pageable pageable);
+
+    @Query("SELECT c FROM Comentario c JOIN FETCH c.autor " +
+            "WHERE c.postagem.id = :postagemId AND c.parent IS NULL " +
+            "AND ((c.destacado = :cursorDestacado AND c.id > :cursorId) OR (:cursorDestacado = true AND c.destacado = false)) " +
+            "ORDER BY c.destacado DESC, c.id ASC")
+    List<Comentario> findRaizesApos(@Param("postagemId") Long postagemId,
+                                    @Param("cursorDestacado") boolean cursorDestacado,
+                                    @Param("cursorId") Long cursorId,
+                                    Pageable pageable);
+
+    // Respostas de um comentário, em ordem de criação (cursor = id)
+    @Query("SELECT c FROM Comentario c JOIN FETCH c.autor JOIN FETCH c.parent p JOIN FETCH p.autor " +
+            "WHERE p.id = :parentId AND c.id > :cursorId ORDER BY c.id ASC")
+    List<Comentario> findRespostasApos(@Param("parentId") Long parentId, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    // Pares [parentId, total] para exibir "ver N respostas" sem carregar as respostas
+    @Query("SELECT c.parent.id, COUNT(c) FROM Comentario c WHERE c.parent.id IN :parentIds GROUP BY c.parent.id")
+    List<Object[]> contarRespostas(@Param("parentIds") Collection<Long> parentIds);
+
+    // Prévia do feed: IDs dos N primeiros comentários de primeiro nível de cada postagem (MySQL 8+)
+    @Query(value = """
+        SELECT t.id FROM (
+            SELECT c.id, ROW_NUMBER() OVER (PARTITION BY c.postagem_id ORDER BY c.destacado DESC, c.id ASC) AS posicao
+            FROM comentario c
+            WHERE c.postagem_id IN (:postagemIds) AND c.parent_id IS NULL
+        ) t WHERE t.posicao <= :limite
+    """, nativeQuery = true)
+    List<Long> findIdsPrevia(@Param("postagemIds") Collection<Long> postagemIds, @Param("limite") int limite);
+
+    // Data de criação do comentário e de todas as respostas abaixo dele (o que a exclusão remove em cascata)
+    @Query(value = """
+        WITH RECURSIVE subarvore AS (
+            SELECT id, data_criacao FROM comentario WHERE id = :comentarioId
+            UNION ALL
+            SELECT c.id, c.data_criacao FROM comentario c JOIN subarvore s ON c.parent_id = s.id
+        )
+        SELECT data_criacao FROM subarvore
+    """, nativeQuery = true)
+    List<LocalDateTime> findDatasCriacaoSubarvore(@Param("comentarioId") Long comentarioId);
+
+    // --- CONTADOR DESNORMALIZADO (incremento atômico no banco) ---
+    @Modifying
+    @Query(value = "UPDATE comentario SET total_curtidas = GREATEST(total_curtidas + :delta, 0) WHERE id = :id", nativeQuery = true)
+    void somarCurtidas(@Param("id") Long id, @Param("delta") int delta);
+
+    // Reconciliação: corrige apenas as linhas cujo contador divergiu da contagem real
+    @Modifying
+    @Query(value = """
+        UPDATE comentario cm
+        LEFT JOIN (SELECT comentario_id, COUNT(*) AS total FROM curtida WHERE comentario_id IS NOT NULL GROUP BY comentario_id) c
+            ON c.comentario_id = cm.id
+        SET cm.total_curtidas = COALESCE(c.total, 0)
+        WHERE cm.total_curtidas <> COALESCE(c.total, 0)
+    """, nativeQuery = true)
+    int reconciliarCurtidas();
+}
@@ -0,0 +1,91 @@
+package com.SenaiCommunity.BackEnd.Repository;
+
+import com.SenaiCommunity.BackEnd.Entity.Conversa;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConversaRepository extends JpaRepository<Conversa, Long> {
+
+    // Conversas do usuário, mais recentes primeiro (um range scan em cada índice do par)
+    @Query("SELECT c FROM Conversa c JOIN FETCH c.usuarioMenor JOIN FETCH c.usuarioMaior " +
+            "WHERE c.usuarioMenor.id = :usuarioId OR c.usuarioMaior.id = :usuarioId " +
+            "ORDER BY c.dataUltimaMensagem DESC")
+    List<Conversa> findDoUsuario(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT c FROM Conversa c WHERE c.usuarioMenor.id = :menorId AND c.usuarioMaior.id = :maiorId")
+    Optional<Conversa> findPorPar(@Param("menorId") Long menorId, @Param("maiorId") Long maiorId);
+
+    /**
+     * Registra uma nova mensagem: cria a linha do par ou atualiza a última mensagem e soma as não lidas.
+     * O MySQL aplica as atribuições da esquerda para a direita, por isso ultima_mensagem_id é a última
+     * (as anteriores ainda comparam com o valor antigo; mensagens fora de ordem não sobrescrevem a prévia).
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO conversa (usuario_menor_id, usuario_maior_id, ultima_mensagem_id, previa_ultima_mensagem,
+                              data_ultima_mensagem, remetente_ultima_mensagem_id, nao_lidas_menor, nao_lidas_maior)
+        VALUES (:menorId, :maiorId, :mensagemId, :previa, :dataEnvio, :remetenteId, :naoLidasMenor, :naoLidasMaior)
+        ON DUPLICATE KEY UPDATE
+            previa_ultima_mensagem = IF(VALUES(ultima_mensagem_id) > ultima_mensagem_id, VALUES(previa_ultima_mensagem), previa_ultima_mensagem),
+            data_ultima_mensagem = IF(VALUES(ultima_mensagem_id) > ultima_mensagem_id, VALUES(data_ultima_mensagem), data_ultima_mensagem),
+            remetente_ultima_mensagem_id = IF(VALUES(ultima_mensagem_id) > ultima_mensagem_id, VALUES(remetente_ultima_mensagem_id), remetente_ultima_mensagem_id),
+            nao_lidas_menor = nao_lidas_menor + VALUES(nao_lidas_menor),
+            nao_lidas_maior = nao_lidas_maior + VALUES(nao_lidas_maior),
+            ultima_mensagem_id = GREATEST(ultima_mensagem_id, VALUES(ultima_mensagem_id))
+    """, nativeQuery = true)
+    void registrarMensagem(@Param("menorId") Long menorId,
+                           @Param("maiorId") Long maiorId,
+                           @Param("mensagemId") Long mensagemId,
+                           @Param("previa") String previa,
+                           @Param("dataEnvio") LocalDateTime dataEnvio,
+                           @Param("remetenteId") Long remetenteId,
+                           @Param("naoLidasMenor") int naoLidasMenor,
+                           @Param("naoLidasMaior") int naoLidasMaior);
+
+    // Edição: só altera a prévia se a mensagem editada for a última da conversa
+    @Modifying
+    @Query("UPDATE Conversa c SET c.previaUltimaMensagem = :previa " +
+            "WHERE c.usuarioMenor.id = :menorId AND c.usuarioMaior.id = :maiorId AND c.ultimaMensagemId = :mensagemId")
+    int atualizarPrevia(@Param("menorId") Long menorId, @Param("maiorId") Long maiorId,
+                        @Param("mensagemId") Long mensagemId, @Param("previa") String previa);
+
+    @Modifying
+    @Query("UPDATE Conversa c SET c.naoLidasMenor = 0 WHERE c.usuarioMenor.id = :menorId AND c.usuarioMaior.id = :maiorId")
+    void zerarNaoLidasMenor(@Param("menorId") Long menorId, @Param("maiorId") Long maiorId);
+
+    @Modifying
+    @Query("UPDATE Conversa c SET c.naoLidasMaior = 0 WHERE c.usuarioMenor.id = :menorId AND c.usuarioMaior.id = :maiorId")
+    void zerarNaoLidasMaior(@Param("menorId") Long menorId, @Param("maiorId") Long maiorId);
+
+    @Modifying
+    @Query("DELETE FROM Conversa c WHERE c.usuarioMenor.id = :menorId AND c.usuarioMaior.id = :maiorId")
+    void deletarPorPar(@Param("menorId") Long menorId, @Param("maiorId") Long maiorId);
+
+    // Carga inicial (tabela vazia em bancos que já têm mensagens): um resumo por par a partir da última mensagem
+    @Modifying
+    @Query(value = """
+        INSERT INTO conversa (usuario_menor_id, usuario_maior_id, ultima_mensagem_id, previa_ultima_mensagem,
+                              data_ultima_mensagem, remetente_ultima_mensagem_id, nao_lidas_menor, nao_lidas_maior)
+        SELECT LEAST(m.remetente_id, m.destinatario_id), GREATEST(m.remetente_id, m.destinatario_id),
+               m.id, LEFT(m.conteudo, 255), m.data_envio, m.remetente_id,
+               (SELECT COUNT(*) FROM mensagem_privada u
+                 WHERE u.destinatario_id = LEAST(m.remetente_id, m.destinatario_id)
+                   AND u.remetente_id = GREATEST(m.remetente_id, m.destinatario_id) AND u.lida = false),
+               (SELECT COUNT(*) FROM mensagem_privada u
+                 WHERE u.destinatario_id = GREATEST(m.remetente_id, m.destinatario_id)
+                   AND u.remetente_id = LEAST(m.remetente_id, m.destinatario_id) AND u.lida = false)
+        FROM mensagem_privada m
+        JOIN (SELECT MAX(id) AS id FROM mensagem_privada
+              GROUP BY LEAST(remetente_id, destinatario_id), GREATEST(remetente_id, destinatario_id)) ultima
+          ON ultima.id = m.id
+    """, nativeQuery = true)
+    int preencherAPartirDasMensagens();
+}
@@ -2,8 +2,12 @@ package com.SenaiCommunity.BackEnd.Repository;
 
 import com.SenaiCommunity.BackEnd.Entity.Curtida;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +16,14 @@ public interface CurtidaRepository extends JpaRepository<Curtida, Long> {
     // Métodos para encontrar uma curtida específica
     Optional<Curtida> findByUsuarioIdAndPostagemId(Long usuarioId, Long postagemId);
     Optional<Curtida> findByUsuarioIdAndComentarioId(Long usuarioId, Long comentarioId);
+    boolean existsByUsuarioIdAndPostagemId(Long usuarioId, Long postagemId);
+    boolean existsByUsuarioIdAndComentarioId(Long usuarioId, Long comentarioId);
+
+    // Retorna pares [postagemId, comentarioId] curtidos pelo usuário dentro da página (sem carregar entidades)
+    @Query(value = "SELECT postagem_id, comentario_id FROM curtida " +
+            "WHERE usuario_id = :usuarioId AND (postagem_id IN (:postagemIds) OR comentario_id IN (:comentarioIds))",
+            nativeQuery = true)
+    List<Object[]> findAlvosCurtidosPorUsuario(@Param("usuarioId") Long usuarioId,
+                                               @Param("postagemIds") Collection<Long> postagemIds,
+                                               @Param("comentarioIds") Collection<Long> comentarioIds);
 }
@@ -1,13 +1,53 @@
 package com.SenaiCommunity.BackEnd.Repository;
 
 import com.SenaiCommunity.BackEnd.Entity.MensagemGrupo;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface MensagemGrupoRepository extends JpaRepository<MensagemGrupo, Long> {
-    Page<MensagemGrupo> findByProjetoIdOrderByDataEnvioDesc(Long projetoId, Pageable pageable);
+    // Página do histórico só com as colunas da tela (sem carregar Usuario e seus relacionamentos).
+    // Retorna [id, sequencia, conteudo, dataEnvio, autorId, nomeAutor, fotoAutor]
+    @Query(value = "SELECT m.id, m.sequencia, m.conteudo, m.dataEnvio, a.id, a.nome, a.fotoPerfil " +
+            "FROM MensagemGrupo m JOIN m.autor a WHERE m.projeto.id = :projetoId ORDER BY m.dataEnvio DESC, m.id DESC",
+            countQuery = "SELECT COUNT(m) FROM MensagemGrupo m WHERE m.projeto.id = :projetoId")
+    Page<Object[]> findPaginaHistorico(@Param("projetoId") Long projetoId, Pageable pageable);
+
+    // --- RETOMADA APÓS RECONEXÃO: mensagens posteriores à última sequência vista ---
+    @Query("SELECT m FROM MensagemGrupo m JOIN FETCH m.autor JOIN FETCH m.projeto " +
+            "WHERE m.projeto.id = :projetoId AND m.sequencia > :sequencia ORDER BY m.sequencia ASC")
+    List<MensagemGrupo> findDesdeSequencia(@Param("projetoId") Long projetoId, @Param("sequencia") long sequencia, Pageable pageable);
+
+    @Query("SELECT MAX(m.sequencia) FROM MensagemGrupo m WHERE m.projeto.id = :projetoId")
+    Long findMaiorSequencia(@Param("projetoId") Long projetoId);
+
+    // true enquanto houver mensagens sem sequência (evita o preenchimento completo a cada inicialização)
+    boolean existsBySequenciaIsNull();
+
+    // Mensagens anteriores à coluna sequencia: numeradas por grupo, na ordem de envio (executado na inicialização)
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE mensagem_grupo m
+        JOIN (
+            SELECT id, ROW_NUMBER() OVER (PARTITION BY projeto_id ORDER BY data_envio, id) AS seq
+            FROM mensagem_grupo
+        ) t ON t.id = m.id
+        SET m.sequencia = t.seq
+        WHERE m.sequencia IS NULL
+    """, nativeQuery = true)
+    int preencherSequencias();
+
+    // Envio já gravado com a chave do cliente (retentativa fora da janela de deduplicação em memória)
+    Optional<MensagemGrupo> findByAutorIdAndIdMensagemCliente(Long autorId, String idMensagemCliente);
 }
@@ -10,51 +10,76 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MensagemPrivadaRepository extends JpaRepository<MensagemPrivada, Long> {
 
+    // --- HISTÓRICO POR CURSOR (conversa_key, id): mais recentes primeiro ---
     @Query("SELECT m FROM MensagemPrivada m " +
             "JOIN FETCH m.remetente " +
             "JOIN FETCH m.destinatario " +
-            "WHERE " +
-            "(m.remetente.id = :id1 AND m.destinatario.id = :id2) OR " +
-            "(m.remetente.id = :id2 AND m.destinatario.id = :id1)")
-    List<MensagemPrivada> findMensagensEntreUsuarios(@Param("id1") Long id1, @Param("id2") Long id2, Pageable pageable);
+            "WHERE m.conversaKey = :conversaKey " +
+            "ORDER BY m.id DESC")
+    List<MensagemPrivada> findHistorico(@Param("conversaKey") String conversaKey, Pageable pageable);
+
+    @Query("SELECT m FROM MensagemPrivada m " +
+            "JOIN FETCH m.remetente " +
+            "JOIN FETCH m.destinatario " +
+            "WHERE m.conversaKey = :conversaKey AND m.id < :antesDe " +
+            "ORDER BY m.id DESC")
+    List<MensagemPrivada> findHistoricoAntesDe(@Param("conversaKey") String conversaKey, @Param("antesDe") Long antesDe, Pageable pageable);
+
+    // --- RETOMADA APÓS RECONEXÃO: mensagens posteriores à última sequência vista ---
+    @Query("SELECT m FROM MensagemPrivada m " +
+            "JOIN FETCH m.remetente " +
+            "JOIN FETCH m.destinatario " +
+            "WHERE m.conversaKey = :conversaKey AND m.sequencia > :sequencia " +
+            "ORDER BY m.sequencia ASC")
+    List<MensagemPrivada> findDesdeSequencia(@Param("conversaKey") String conversaKey, @Param("sequencia") long sequencia, Pageable pageable);
 
+    @Query("SELECT MAX(m.sequencia) FROM MensagemPrivada m WHERE m.conversaKey = :conversaKey")
+    Long findMaiorSequencia(@Param("conversaKey") String conversaKey);
+
+    // true enquanto houver mensagens sem sequência (evita o preenchimento completo a cada inicialização)
+    boolean existsBySequenciaIsNull();
+
+    // Mensagens anteriores à coluna sequencia: numeradas por conversa, na ordem de envio (executado na inicialização)
+    @Modifying
+    @Transactional
     @Query(value = """
-        WITH MensagensComParceiro AS (
-            SELECT 
-                m.*,
-                CASE
-                    WHEN m.remetente_id = :usuarioLogadoId THEN m.destinatario_id
-                    ELSE m.remetente_id
-                END AS outro_usuario_id,
-                ROW_NUMBER() OVER(
-                    PARTITION BY 
-                        CASE
-                            WHEN m.remetente_id = :usuarioLogadoId THEN m.destinatario_id
-                            ELSE m.remetente_id
-                        END
-                    ORDER BY m.data_envio DESC
-                ) as rn
-            FROM 
-                mensagem_privada m
-            WHERE 
-                m.remetente_id = :usuarioLogadoId OR m.destinatario_id = :usuarioLogadoId
-        )
-        SELECT * FROM MensagensComParceiro
-        WHERE rn = 1
-        ORDER BY data_envio DESC
+        UPDATE mensagem_privada m
+        JOIN (
+            SELECT id, ROW_NUMBER() OVER (
+                PARTITION BY LEAST(remetente_id, destinatario_id), GREATEST(remetente_id, destinatario_id) ORDER BY id
+            ) AS seq
+            FROM mensagem_privada
+        ) t ON t.id = m.id
+        SET m.sequencia = t.seq
+        WHERE m.sequencia IS NULL
     """, nativeQuery = true)
-    List<MensagemPrivada> findUltimasMensagensPorConversa(@Param("usuarioLogadoId") Long usuarioLogadoId);
+    int preencherSequencias();
 
-    long countByDestinatarioAndLidaIsFalse(Usuario destinatario);
+    // Mensagens anteriores à coluna conversa_key (executado uma vez na inicialização)
+    @Modifying
+    @Query(value = "UPDATE mensagem_privada SET conversa_key = CONCAT(LEAST(remetente_id, destinatario_id), '_', GREATEST(remetente_id, destinatario_id)) " +
+            "WHERE conversa_key IS NULL", nativeQuery = true)
+    int preencherConversaKey();
+
+    long countByDestinatarioIdAndLidaIsFalse(Long destinatarioId);
+
+    // Pares [destinatarioId, total] de não lidas, para a reconciliação dos contadores em memória
+    @Query("SELECT m.destinatario.id, COUNT(m) FROM MensagemPrivada m " +
+            "WHERE m.destinatario.id IN :destinatarioIds AND m.lida = false GROUP BY m.destinatario.id")
+    List<Object[]> contarNaoLidasPorDestinatario(@Param("destinatarioIds") Collection<Long> destinatarioIds);
+
+    long countByRemetenteIdAndDestinatarioIdAndLidaIsFalse(Long remetenteId, Long destinatarioId);
 
     @Modifying
     @Query("UPDATE MensagemPrivada m SET m.lida = true WHERE m.destinatario = :destinatario AND m.remetente = :remetente AND m.lida = false")
-    void marcarComoLidas(@Param("destinatario") Usuario destinatario, @Param("remetente") Usuario remetente);
+    int marcarComoLidas(@Param("destinatario") Usuario destinatario, @Param("remetente") Usuario remetente);
 
     @Modifying
     @Transactional
@@ -62,4 +87,7 @@ public interface MensagemPrivadaRepository extends JpaRepository<MensagemPrivada
             "(m.remetente.id = :id1 AND m.destinatario.id = :id2) OR " +
             "(m.remetente.id = :id2 AND m.destinatario.id = :id1)")
     void deletarConversaEntreUsuarios(@Param("id1") Long id1, @Param("id2") Long id2);
-}
\ No newline at end of file
+
+    // Envio já gravado com a chave do cliente (retentativa fora da janela de deduplicação em memória)
+    Optional<MensagemPrivada> findByRemetenteIdAndIdMensagemCliente(Long remetenteId, String idMensagemCliente);
+}
@@ -1,16 +1,92 @@
 package com.SenaiCommunity.BackEnd.Repository;
 
 import com.SenaiCommunity.BackEnd.Entity.Postagem;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PostagemRepository extends JpaRepository<Postagem, Long> {
-    @EntityGraph(attributePaths = {"autor", "arquivos", "comentarios", "curtidas"})
-    List<Postagem> findTop10ByOrderByDataPostagemDesc();
-    @EntityGraph(attributePaths = {"autor", "arquivos", "comentarios", "curtidas"})
-    List<Postagem> findByAutorIdOrderByDataPostagemDesc(Long usuarioId);
-}
\ No newline at end of file
+    // --- MURAL DO PERFIL PAGINADO POR CURSOR (dataPostagem, id) ---
+    @Query("SELECT p.id FROM Postagem p WHERE p.autor.id = :autorId ORDER BY p.dataPostagem DESC, p.id DESC")
+    List<Long> findIdsDoAutor(@Param("autorId") Long autorId, Pageable pageable);
+
+    @Query("SELECT p.id FROM Postagem p WHERE p.autor.id = :autorId " +
+            "AND (p.dataPostagem < :cursorData OR (p.dataPostagem = :cursorData AND p.id < :cursorId)) " +
+            "ORDER BY p.dataPostagem DESC, p.id DESC")
+    List<Long> findIdsDoAutorAntesDe(@Param("autorId") Long autorId,
+                                     @Param("cursorData") LocalDateTime cursorData,
+                                     @Param("cursorId") Long cursorId,
+                                     Pageable pageable);
+
+    // --- FEED PAGINADO POR CURSOR (dataPostagem, id) ---
+    // Fase 1: busca apenas os IDs da página, sem joins.
+    @Query("SELECT p.id FROM Postagem p ORDER BY p.dataPostagem DESC, p.id DESC")
+    List<Long> findIdsFeed(Pageable pageable);
+
+    @Query("SELECT p.id FROM Postagem p " +
+            "WHERE p.dataPostagem < :cursorData OR (p.dataPostagem = :cursorData AND p.id < :cursorId) " +
+            "ORDER BY p.dataPostagem DESC, p.id DESC")
+    List<Long> findIdsFeedAntesDe(@Param("cursorData") LocalDateTime cursorData, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    // --- FEED DE AMIGOS (cursor = id, que segue a ordem de criação) ---
+    @Query("SELECT p.id FROM Postagem p WHERE p.autor.id IN :autorIds ORDER BY p.id DESC")
+    List<Long> findIdsDeAutores(@Param("autorIds") Collection<Long> autorIds, Pageable pageable);
+
+    @Query("SELECT p.id FROM Postagem p WHERE p.autor.id IN :autorIds AND p.id < :antesDe ORDER BY p.id DESC")
+    List<Long> findIdsDeAutoresAntesDe(@Param("autorIds") Collection<Long> autorIds, @Param("antesDe") Long antesDe, Pageable pageable);
+
+    // Carga inicial do ranking "em alta": [id, dataPostagem, totalCurtidas, totalComentarios] das mais recentes
+    @Query("SELECT p.id, p.dataPostagem, p.totalCurtidas, p.totalComentarios FROM Postagem p ORDER BY p.dataPostagem DESC, p.id DESC")
+    List<Object[]> findResumoRecentes(Pageable pageable);
+
+    // Fase 2: hidrata cada associação em uma consulta separada (evita o produto cartesiano)
+    @Query("SELECT p FROM Postagem p JOIN FETCH p.autor WHERE p.id IN :ids")
+    List<Postagem> findComAutorByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT p FROM Postagem p LEFT JOIN FETCH p.arquivos WHERE p.id IN :ids")
+    List<Postagem> carregarArquivos(@Param("ids") Collection<Long> ids);
+
+
+    // --- CONTADORES DESNORMALIZADOS (incremento atômico no banco) ---
+    @Modifying
+    @Query(value = "UPDATE postagem SET total_curtidas = GREATEST(total_curtidas + :delta, 0) WHERE id = :id", nativeQuery = true)
+    void somarCurtidas(@Param("id") Long id, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE postagem SET total_comentarios = GREATEST(total_comentarios + :delta, 0) WHERE id = :id", nativeQuery = true)
+    void somarComentarios(@Param("id") Long id, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE postagem SET total_comentarios = " +
+            "(SELECT COUNT(*) FROM comentario c WHERE c.postagem_id = :id) WHERE id = :id", nativeQuery = true)
+    void recontarComentarios(@Param("id") Long id);
+
+    // Reconciliação: corrige apenas as linhas cujo contador divergiu da contagem real
+    @Modifying
+    @Query(value = """
+        UPDATE postagem p
+        LEFT JOIN (SELECT postagem_id, COUNT(*) AS total FROM curtida WHERE postagem_id IS NOT NULL GROUP BY postagem_id) c
+            ON c.postagem_id = p.id
+        SET p.total_curtidas = COALESCE(c.total, 0)
+        WHERE p.total_curtidas <> COALESCE(c.total, 0)
+    """, nativeQuery = true)
+    int reconciliarCurtidas();
+
+    @Modifying
+    @Query(value = """
+        UPDATE postagem p
+        LEFT JOIN (SELECT postagem_id, COUNT(*) AS total FROM comentario GROUP BY postagem_id) c
+            ON c.postagem_id = p.id
+        SET p.total_comentarios = COALESCE(c.total, 0)
+        WHERE p.total_comentarios <> COALESCE(c.total, 0)
+    """, nativeQuery = true)
+    int reconciliarComentarios();
+}
@@ -1,7 +1,9 @@
 package com.SenaiCommunity.BackEnd.Repository;
 
 import com.SenaiCommunity.BackEnd.Entity.ProjetoMembro;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,6 +20,12 @@ public interface ProjetoMembroRepository extends JpaRepository<ProjetoMembro, Lo
 
     List<ProjetoMembro> findByUsuarioId(Long usuarioId);
 
+    @Query("SELECT pm.projeto.id FROM ProjetoMembro pm WHERE pm.usuario.id = :usuarioId")
+    List<Long> findProjetoIdsByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT pm.usuario.id FROM ProjetoMembro pm WHERE pm.projeto.id = :projetoId")
+    List<Long> findUsuarioIdsByProjetoId(@Param("projetoId") Long projetoId);
+
     @Query("SELECT COUNT(pm) FROM ProjetoMembro pm WHERE pm.projeto.id = :projetoId")
     Integer countMembrosByProjetoId(@Param("projetoId") Long projetoId);
 
@@ -26,6 +34,63 @@ public interface ProjetoMembroRepository extends JpaRepository<ProjetoMembro, Lo
 
     boolean existsByProjetoIdAndUsuarioId(Long projetoId, Long usuarioId);
 
+    // --- CURSOR DE LEITURA DO CHAT DO GRUPO (só avança) ---
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProjetoMembro pm SET pm.ultimaSequenciaLida = :sequencia " +
+            "WHERE pm.projeto.id = :projetoId AND pm.usuario.id = :usuarioId " +
+            "AND (pm.ultimaSequenciaLida IS NULL OR pm.ultimaSequenciaLida < :sequencia)")
+    int avancarLeitura(@Param("projetoId") Long projetoId, @Param("usuarioId") Long usuarioId, @Param("sequencia") long sequencia);
+
+    boolean existsByUltimaSequenciaLidaIsNull();
+
+    // Membros sem cursor (anteriores à coluna): começam lidos até a última mensagem do grupo (0 se vazio)
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE projeto_membros pm
+        LEFT JOIN (
+            SELECT projeto_id, MAX(sequencia) AS ultima FROM mensagem_grupo GROUP BY projeto_id
+        ) m ON m.projeto_id = pm.projeto_id
+        SET pm.ultima_sequencia_lida = COALESCE(m.ultima, 0)
+        WHERE pm.ultima_sequencia_lida IS NULL
+    """, nativeQuery = true)
+    int iniciarCursoresDeLeitura();
+
+    // Não lidas por projeto do usuário: com cursor, faixa de sequência (idx_msg_grupo_projeto_sequencia);
+    // sem cursor, tudo desde a entrada no projeto (idx_msg_grupo_projeto_data). Retorna [projetoId, quantidade]
+    @Query(value = """
+        SELECT pm.projeto_id, COUNT(m.id)
+        FROM projeto_membros pm
+        JOIN mensagem_grupo m ON m.projeto_id = pm.projeto_id AND m.sequencia > pm.ultima_sequencia_lida
+        WHERE pm.usuario_id = :usuarioId AND pm.ultima_sequencia_lida IS NOT NULL AND m.autor_id <> :usuarioId
+        GROUP BY pm.projeto_id
+        UNION ALL
+        SELECT pm.projeto_id, COUNT(m.id)
+        FROM projeto_membros pm
+        JOIN mensagem_grupo m ON m.projeto_id = pm.projeto_id AND m.data_envio > pm.data_entrada
+        WHERE pm.usuario_id = :usuarioId AND pm.ultima_sequencia_lida IS NULL AND m.autor_id <> :usuarioId
+        GROUP BY pm.projeto_id
+    """, nativeQuery = true)
+    List<Object[]> contarNaoLidasPorProjeto(@Param("usuarioId") Long usuarioId);
+
+    // Membros com mensagens não lidas no grupo e sem aviso de mensagens do projeto ainda não lido (resumo periódico)
+    @Query(value = """
+        SELECT pm.usuario_id
+        FROM projeto_membros pm
+        WHERE pm.projeto_id = :projetoId
+          AND EXISTS (
+              SELECT 1 FROM mensagem_grupo m
+              WHERE m.projeto_id = pm.projeto_id AND m.autor_id <> pm.usuario_id
+                AND m.sequencia > COALESCE(pm.ultima_sequencia_lida, 0)
+                AND (pm.ultima_sequencia_lida IS NOT NULL OR m.data_envio > pm.data_entrada))
+          AND NOT EXISTS (
+              SELECT 1 FROM notificacao n
+              WHERE n.destinatario_id = pm.usuario_id AND n.tipo = 'MENSAGEM_PROJETO'
+                AND n.id_referencia = pm.projeto_id AND n.lida = false)
+    """, nativeQuery = true)
+    List<Long> findIdsParaResumoDeMensagens(@Param("projetoId") Long projetoId);
+
     long countByUsuarioId(Long usuarioId);
 
 }
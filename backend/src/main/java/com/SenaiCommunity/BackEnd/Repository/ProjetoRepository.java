@@ -2,6 +2,8 @@ package com.SenaiCommunity.BackEnd.Repository;
 
 import com.SenaiCommunity.BackEnd.Entity.Projeto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +14,10 @@ public interface ProjetoRepository extends JpaRepository<Projeto, Long> {
     // Adicione este método ao ProjetoRepository
     List<Projeto> findByGrupoPrivadoFalse();
     List<Projeto> findByGrupoPrivadoTrue();
+
+    @Query("SELECT p.id FROM Projeto p WHERE p.autor.id = :autorId")
+    List<Long> findIdsByAutorId(@Param("autorId") Long autorId);
+
+    @Query("SELECT p.autor.id FROM Projeto p WHERE p.id = :projetoId")
+    Long findAutorIdById(@Param("projetoId") Long projetoId);
 }
@@ -33,4 +33,11 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
             "WHERE u.nome LIKE %:nome% AND u.id != :usuarioLogadoId")
     List<UsuarioBuscaDTO> buscarUsuariosComStatus(@Param("nome") String nome, @Param("usuarioLogadoId") Long usuarioLogadoId);
 
+    // --- BLOQUEIOS (apenas IDs, direto da tabela usuario_bloqueios) ---
+    @Query("SELECT b.id FROM Usuario u JOIN u.bloqueados b WHERE u.id = :usuarioId")
+    List<Long> findIdsBloqueadosPor(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT u.id FROM Usuario u JOIN u.bloqueados b WHERE b.id = :usuarioId")
+    List<Long> findIdsBloqueadoresDe(@Param("usuarioId") Long usuarioId);
+
 }
@@ -1,17 +1,20 @@
 package com.SenaiCommunity.BackEnd.Security;
 
+import com.SenaiCommunity.BackEnd.Service.UsuarioDetailsImpl;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import io.jsonwebtoken.JwtParser;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -63,17 +66,43 @@ JWTUtil {
 
     public Long getIdDoToken(String token) {
         try {
-            Claims claims = getClaims(token);
-            Object idObj = claims.get("id");
-            if (idObj instanceof Integer) return ((Integer) idObj).longValue();
-            if (idObj instanceof Long) return (Long) idObj;
-            if (idObj instanceof String) return Long.parseLong((String)idObj);
+            return idDasClaims(getClaims(token));
+        } catch (Exception e) {
             return null;
+        }
+    }
+
+    /**
+     * Monta o usuário autenticado direto das claims (subject, id e role), sem consultar o banco.
+     * Retorna null se o token for inválido/expirado ou não tiver as claims de id e role (tokens antigos).
+     */
+    public UsuarioDetailsImpl getUsuarioDoToken(String token) {
+        try {
+            Claims claims = getClaims(token);
+            Date expiracao = claims.getExpiration();
+            if (expiracao == null || !expiracao.after(new Date())) {
+                return null;
+            }
+
+            Long id = idDasClaims(claims);
+            String role = claims.get("role", String.class);
+            if (id == null || role == null || claims.getSubject() == null) {
+                return null;
+            }
+            return new UsuarioDetailsImpl(id, claims.getSubject(), List.of(new SimpleGrantedAuthority(role)));
         } catch (Exception e) {
             return null;
         }
     }
 
+    private Long idDasClaims(Claims claims) {
+        Object idObj = claims.get("id");
+        if (idObj instanceof Integer) return ((Integer) idObj).longValue();
+        if (idObj instanceof Long) return (Long) idObj;
+        if (idObj instanceof String) return Long.parseLong((String)idObj);
+        return null;
+    }
+
     public boolean validarToken(String token) {
         try {
             Claims claims = getClaims(token);
@@ -0,0 +1,48 @@
+package com.SenaiCommunity.BackEnd.Security;
+
+import com.SenaiCommunity.BackEnd.Service.UsuarioDetailsImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Acesso ao usuário autenticado da requisição HTTP (preenchido pelo JWTFilter)
+ * ou da sessão STOMP (preenchido pelo AuthChannelInterceptor no CONNECT).
+ * Lê apenas o SecurityContext: nenhuma consulta ao banco.
+ */
+@Component
+public class UsuarioAtual {
+
+    public UsuarioDetailsImpl get() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof UsuarioDetailsImpl usuario) {
+            return usuario;
+        }
+        return null;
+    }
+
+    /**
+     * ID do usuário autenticado, ou null se a requisição for anônima.
+     */
+    public Long getId() {
+        UsuarioDetailsImpl usuario = get();
+        return usuario != null ? usuario.getId() : null;
+    }
+
+    public String getEmail() {
+        UsuarioDetailsImpl usuario = get();
+        return usuario != null ? usuario.getUsername() : null;
+    }
+
+    /**
+     * Usuário de um Principal avulso (ex.: o da sessão STOMP nos eventos de conexão), ou null.
+     */
+    public static UsuarioDetailsImpl de(Principal principal) {
+        if (principal instanceof Authentication auth && auth.getPrincipal() instanceof UsuarioDetailsImpl usuario) {
+            return usuario;
+        }
+        return null;
+    }
+}
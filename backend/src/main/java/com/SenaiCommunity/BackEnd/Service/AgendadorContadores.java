@@ -0,0 +1,40 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Repository.ComentarioRepository;
+import com.SenaiCommunity.BackEnd.Repository.PostagemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class AgendadorContadores {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgendadorContadores.class);
+
+    @Autowired
+    private PostagemRepository postagemRepository;
+
+    @Autowired
+    private ComentarioRepository comentarioRepository;
+
+    /**
+     * Corrige a divergência entre os contadores desnormalizados (totalCurtidas / totalComentarios)
+     * e a contagem real das tabelas. Roda 1 minuto após a subida (preenche colunas recém-criadas)
+     * e depois a cada 6 horas.
+     */
+    @Scheduled(initialDelay = 60000, fixedDelay = 6 * 60 * 60 * 1000)
+    @Transactional
+    public void reconciliarContadores() {
+        int curtidasPostagem = postagemRepository.reconciliarCurtidas();
+        int comentariosPostagem = postagemRepository.reconciliarComentarios();
+        int curtidasComentario = comentarioRepository.reconciliarCurtidas();
+
+        if (curtidasPostagem + comentariosPostagem + curtidasComentario > 0) {
+            logger.info("Contadores reconciliados: {} curtidas de postagem, {} totais de comentários, {} curtidas de comentário",
+                    curtidasPostagem, comentariosPostagem, curtidasComentario);
+        }
+    }
+}
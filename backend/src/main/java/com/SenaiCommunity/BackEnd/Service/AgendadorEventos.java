@@ -4,6 +4,8 @@ import com.SenaiCommunity.BackEnd.Entity.Evento;
 import com.SenaiCommunity.BackEnd.Entity.Usuario;
 import com.SenaiCommunity.BackEnd.Repository.EventoRepository;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -16,13 +18,15 @@ import java.util.Set;
 @Component
 public class AgendadorEventos {
 
+    private static final Logger logger = LoggerFactory.getLogger(AgendadorEventos.class);
+
     @Autowired
     private EventoRepository eventoRepository;
 
     @Autowired
     private NotificacaoService notificacaoService;
 
-    // Roda a cada 60000 milissegundos (1 minuto)
+    // Roda a cada 60000 milissegundos (1 minuto), no pool de AgendamentoConfig
     @Scheduled(fixedRate = 60000)
     @Transactional
     public void verificarEventos() {
@@ -72,7 +76,7 @@ public class AgendadorEventos {
                         evento.getId()
                 );
             }
-            System.out.println("Notificações de " + tipo + " enviadas para o evento: " + evento.getNome());
+            logger.info("Notificações de {} enviadas para o evento: {}", tipo, evento.getNome());
         }
     }
 }
\ No newline at end of file
@@ -38,6 +38,9 @@ public class AmizadeService {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private FeedAmigosService feedAmigosService;
+
     private void notificarAtualizacaoDeAmizade(Usuario usuario) {
         if (usuario == null || usuario.getEmail() == null) return;
 
@@ -91,6 +94,7 @@ public class AmizadeService {
 
         amizade.setStatus(StatusAmizade.ACEITO);
         amizadeRepository.save(amizade);
+        feedAmigosService.invalidar(amizade.getSolicitante().getId(), amizade.getSolicitado().getId());
 
         notificacaoService.criarNotificacao(amizade.getSolicitante(), amizade.getSolicitado().getNome() + " aceitou seu pedido de amizade.");
         notificarAtualizacaoDeAmizade(amizade.getSolicitante());
@@ -114,6 +118,7 @@ public class AmizadeService {
         Usuario solicitado = amizade.getSolicitado();
 
         amizadeRepository.delete(amizade);
+        feedAmigosService.invalidar(solicitante.getId(), solicitado.getId());
 
         notificarAtualizacaoDeAmizade(solicitante);
         notificarAtualizacaoDeAmizade(solicitado);
@@ -150,7 +155,7 @@ public class AmizadeService {
                     Usuario amigo = amizade.getSolicitante().getId().equals(usuarioLogado.getId())
                             ? amizade.getSolicitado()
                             : amizade.getSolicitante();
-                    boolean isOnline = userStatusService.isOnline(amigo.getEmail());
+                    boolean isOnline = userStatusService.isOnline(amigo.getId());
                     return new AmigoDTO(amizade.getId(), amigo, isOnline);
                 })
                 .collect(Collectors.toList());
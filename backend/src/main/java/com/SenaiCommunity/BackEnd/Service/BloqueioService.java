@@ -0,0 +1,57 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Repository.UsuarioRepository;
+import com.SenaiCommunity.BackEnd.Service.Util.AposCommit;
+import com.SenaiCommunity.BackEnd.Service.Util.LongHashSet;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Relações de bloqueio entre usuários em cache, por ID, nos dois sentidos:
+ * quem o usuário bloqueou e quem bloqueou o usuário. As verificações não tocam no Hibernate
+ * nem carregam a coleção {@code Usuario.bloqueados}.
+ * Os conjuntos em cache nunca são alterados: bloquear/desbloquear descarta a entrada após o commit.
+ * O descarte só vale nesta instância; com várias réplicas (broker relay) as outras enxergam a mudança
+ * quando a entrada expira, no máximo {@link #VALIDADE} depois da carga.
+ */
+@Service
+public class BloqueioService {
+
+    private static final Duration VALIDADE = Duration.ofSeconds(30);
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private final Cache<Long, LongHashSet> bloqueadosPor = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(VALIDADE)
+            .build();
+
+    private final Cache<Long, LongHashSet> bloqueadoresDe = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(VALIDADE)
+            .build();
+
+    /** true se {@code bloqueadorId} bloqueou {@code bloqueadoId}. */
+    public boolean bloqueou(Long bloqueadorId, Long bloqueadoId) {
+        return bloqueadosPor.get(bloqueadorId, id -> LongHashSet.of(usuarioRepository.findIdsBloqueadosPor(id)))
+                .contains(bloqueadoId);
+    }
+
+    /** true se {@code usuarioId} foi bloqueado por {@code outroId}. */
+    public boolean foiBloqueadoPor(Long usuarioId, Long outroId) {
+        return bloqueadoresDe.get(usuarioId, id -> LongHashSet.of(usuarioRepository.findIdsBloqueadoresDe(id)))
+                .contains(outroId);
+    }
+
+    public void invalidar(Long bloqueadorId, Long bloqueadoId) {
+        AposCommit.executar(() -> {
+            bloqueadosPor.invalidate(bloqueadorId);
+            bloqueadoresDe.invalidate(bloqueadoId);
+        });
+    }
+}
@@ -0,0 +1,311 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Entity.MensagemPrivada;
+import com.SenaiCommunity.BackEnd.Repository.ProjetoMembroRepository;
+import com.SenaiCommunity.BackEnd.Repository.ProjetoRepository;
+import com.SenaiCommunity.BackEnd.Service.ChatLogService.MensagemRegistrada;
+import com.SenaiCommunity.BackEnd.Service.ChatLogService.TipoMensagem;
+import com.SenaiCommunity.BackEnd.Service.Util.NormalizacaoUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Busca textual no histórico de chat (privado e de grupo) com um índice Lucene em disco local.
+ *
+ * O índice guarda só o texto normalizado ({@link NormalizacaoUtils#semAcentos}: minúsculas, sem acentos,
+ * números preservados, pontuação como separador) e os campos de filtro; o conteúdo devolvido ao usuário
+ * é sempre lido do banco. Mensagens privadas são filtradas pelo
+ * participante e as de grupo pelos projetos em que o usuário é membro ou autor, avaliados na hora da busca
+ * (quem sai do projeto deixa de encontrar as mensagens dele sem precisar reindexar nada).
+ *
+ * O índice é atualizado depois da gravação de cada lote do log de chat, das edições e das exclusões.
+ * As alterações ficam visíveis na busca seguinte e são gravadas no disco periodicamente; o maior ID indexado
+ * vai junto em cada commit, e na inicialização o que foi gravado no banco depois dele é reindexado.
+ * Um índice gravado com outra versão da normalização é descartado e refeito do zero.
+ */
+@Service
+public class BuscaChatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BuscaChatService.class);
+
+    private static final int LIMITE_MAXIMO = 50;
+    private static final int LOTE_REINDEXACAO = 1000;
+    private static final String CHAVE_VERSAO = "versao";
+    // Mudou a forma de normalizar o texto: incrementar para reindexar tudo
+    private static final String VERSAO_NORMALIZACAO = "2";
+
+    public record Ocorrencia(TipoMensagem tipo, Long id) {}
+
+    @Value("${chat.busca.dir:./chat-busca}")
+    private String diretorio;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProjetoMembroRepository projetoMembroRepository;
+
+    @Autowired
+    private ProjetoRepository projetoRepository;
+
+    private FSDirectory indice;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    // Maior ID já enviado ao índice, por tipo; vai nos dados de cada commit
+    private final AtomicLong ultimaPrivada = new AtomicLong();
+    private final AtomicLong ultimoGrupo = new AtomicLong();
+
+    @PostConstruct
+    public void abrir() {
+        try {
+            indice = FSDirectory.open(Path.of(diretorio));
+            writer = new IndexWriter(indice, new IndexWriterConfig(new StandardAnalyzer())
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            searcherManager = new SearcherManager(writer, null);
+
+            Map<String, String> dadosCommit = new HashMap<>();
+            Iterable<Map.Entry<String, String>> gravados = writer.getLiveCommitData();
+            if (gravados != null) gravados.forEach(e -> dadosCommit.put(e.getKey(), e.getValue()));
+            if (VERSAO_NORMALIZACAO.equals(dadosCommit.get(CHAVE_VERSAO))) {
+                ultimaPrivada.set(Long.parseLong(dadosCommit.getOrDefault(TipoMensagem.PRIVADA.name(), "0")));
+                ultimoGrupo.set(Long.parseLong(dadosCommit.getOrDefault(TipoMensagem.GRUPO.name(), "0")));
+            } else if (writer.getDocStats().maxDoc > 0) {
+                logger.info("Índice de busca do chat com outra normalização de texto; será refeito");
+                writer.deleteAll();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o índice de busca do chat em " + diretorio, e);
+        }
+    }
+
+    /**
+     * Indexa as mensagens gravadas no banco depois do último commit do índice (na primeira execução, todas).
+     * Roda em segundo plano: até terminar, a busca pode não encontrar mensagens antigas.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindexarPendentes() {
+        try {
+            int privadas = reindexar(TipoMensagem.PRIVADA,
+                    "SELECT id, remetente_id, destinatario_id, conteudo, data_envio FROM mensagem_privada WHERE id > ? ORDER BY id LIMIT ?",
+                    ultimaPrivada.get());
+            int grupos = reindexar(TipoMensagem.GRUPO,
+                    "SELECT id, autor_id, projeto_id, conteudo, data_envio FROM mensagem_grupo WHERE id > ? ORDER BY id LIMIT ?",
+                    ultimoGrupo.get());
+            if (privadas + grupos > 0) {
+                logger.info("Índice de busca do chat: {} mensagens privadas e {} de grupo indexadas", privadas, grupos);
+                gravar();
+            }
+        } catch (Exception e) {
+            logger.error("Falha ao reindexar o histórico de chat: {}", e.getMessage(), e);
+        }
+    }
+
+    private int reindexar(TipoMensagem tipo, String sql, long aPartirDe) {
+        int total = 0;
+        long cursor = aPartirDe;
+        while (true) {
+            List<MensagemRegistrada> lote = jdbcTemplate.query(sql, (rs, i) -> {
+                Timestamp dataEnvio = rs.getTimestamp("data_envio");
+                return new MensagemRegistrada(tipo, rs.getLong(1), rs.getLong(2), rs.getLong(3), null,
+                        rs.getString("conteudo"), dataEnvio != null ? dataEnvio.toLocalDateTime() : null, List.of(), null);
+            }, cursor, LOTE_REINDEXACAO);
+            if (lote.isEmpty()) return total;
+
+            indexar(lote);
+            total += lote.size();
+            cursor = lote.get(lote.size() - 1).id();
+        }
+    }
+
+    /**
+     * Inclui ou substitui as mensagens no índice (novas e editadas).
+     */
+    public void indexar(List<MensagemRegistrada> mensagens) {
+        try {
+            for (MensagemRegistrada mensagem : mensagens) {
+                writer.updateDocument(chave(mensagem.tipo(), mensagem.id()), documento(mensagem));
+                (mensagem.tipo() == TipoMensagem.PRIVADA ? ultimaPrivada : ultimoGrupo)
+                        .accumulateAndGet(mensagem.id(), Math::max);
+            }
+        } catch (IOException e) {
+            logger.error("Falha ao indexar {} mensagens de chat: {}", mensagens.size(), e.getMessage());
+        }
+    }
+
+    public void remover(TipoMensagem tipo, Long id) {
+        excluirDoIndice(new TermQuery(chave(tipo, id)));
+    }
+
+    public void removerConversa(String conversaKey) {
+        excluirDoIndice(new TermQuery(new Term("conversa", conversaKey)));
+    }
+
+    public void removerProjeto(Long projetoId) {
+        excluirDoIndice(LongPoint.newExactQuery("projeto", projetoId));
+    }
+
+    /**
+     * Mensagens que contêm todas as palavras do texto (a última também como prefixo, para busca enquanto digita),
+     * das conversas do usuário e dos projetos em que ele participa, das mais recentes para as mais antigas.
+     */
+    public List<Ocorrencia> buscar(Long usuarioId, String texto, int limite) {
+        List<String> palavras = Arrays.stream(normalizar(texto).split("\\s+")).filter(p -> !p.isBlank()).toList();
+        if (palavras.isEmpty()) {
+            return List.of();
+        }
+
+        BooleanQuery.Builder consulta = new BooleanQuery.Builder();
+        for (int i = 0; i < palavras.size(); i++) {
+            Term termo = new Term("conteudo", palavras.get(i));
+            boolean ultima = i == palavras.size() - 1;
+            consulta.add(ultima ? new PrefixQuery(termo) : new TermQuery(termo), BooleanClause.Occur.MUST);
+        }
+        consulta.add(acessiveis(usuarioId), BooleanClause.Occur.FILTER);
+
+        int tamanho = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        Sort maisRecentes = new Sort(new SortField("data", SortField.Type.LONG, true));
+        try {
+            searcherManager.maybeRefresh();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopFieldDocs encontrados = searcher.search(consulta.build(), tamanho, maisRecentes);
+                StoredFields campos = searcher.storedFields();
+                List<Ocorrencia> ocorrencias = new ArrayList<>(encontrados.scoreDocs.length);
+                for (ScoreDoc encontrado : encontrados.scoreDocs) {
+                    Document doc = campos.document(encontrado.doc);
+                    ocorrencias.add(new Ocorrencia(TipoMensagem.valueOf(doc.get("tipo")),
+                            doc.getField("id").numericValue().longValue()));
+                }
+                return ocorrencias;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha na busca do histórico de chat", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.busca.commit-ms:30000}")
+    public void gravar() {
+        try {
+            if (!writer.hasUncommittedChanges()) return;
+            writer.setLiveCommitData(Map.of(
+                    CHAVE_VERSAO, VERSAO_NORMALIZACAO,
+                    TipoMensagem.PRIVADA.name(), String.valueOf(ultimaPrivada.get()),
+                    TipoMensagem.GRUPO.name(), String.valueOf(ultimoGrupo.get())).entrySet());
+            writer.commit();
+        } catch (IOException e) {
+            logger.error("Falha ao gravar o índice de busca do chat: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void fechar() throws IOException {
+        gravar();
+        searcherManager.close();
+        writer.close();
+        indice.close();
+    }
+
+    // Conversas em que o usuário é participante OU projetos de que é membro/autor
+    private Query acessiveis(Long usuarioId) {
+        Set<Long> projetos = new HashSet<>(projetoMembroRepository.findProjetoIdsByUsuarioId(usuarioId));
+        projetos.addAll(projetoRepository.findIdsByAutorId(usuarioId));
+
+        BooleanQuery.Builder filtro = new BooleanQuery.Builder()
+                .add(LongPoint.newExactQuery("participante", usuarioId), BooleanClause.Occur.SHOULD);
+        if (!projetos.isEmpty()) {
+            filtro.add(LongPoint.newSetQuery("projeto", projetos), BooleanClause.Occur.SHOULD);
+        }
+        return filtro.build();
+    }
+
+    private void excluirDoIndice(Query consulta) {
+        try {
+            writer.deleteDocuments(consulta);
+        } catch (IOException e) {
+            logger.error("Falha ao remover mensagens do índice de busca do chat: {}", e.getMessage());
+        }
+    }
+
+    private static Term chave(TipoMensagem tipo, Long id) {
+        return new Term("chave", tipo.name() + ":" + id);
+    }
+
+    private static Document documento(MensagemRegistrada mensagem) {
+        Document doc = new Document();
+        doc.add(new StringField("chave", chave(mensagem.tipo(), mensagem.id()).text(), Field.Store.NO));
+        doc.add(new StringField("tipo", mensagem.tipo().name(), Field.Store.YES));
+        doc.add(new StoredField("id", mensagem.id()));
+        doc.add(new TextField("conteudo", normalizar(mensagem.conteudo()), Field.Store.NO));
+        long data = mensagem.dataEnvio() != null
+                ? mensagem.dataEnvio().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        doc.add(new NumericDocValuesField("data", data));
+
+        if (mensagem.tipo() == TipoMensagem.PRIVADA) {
+            doc.add(new StringField("conversa", MensagemPrivada.chaveConversa(mensagem.autorId(), mensagem.alvoId()), Field.Store.NO));
+            doc.add(new LongPoint("participante", mensagem.autorId()));
+            doc.add(new LongPoint("participante", mensagem.alvoId()));
+        } else {
+            doc.add(new LongPoint("projeto", mensagem.alvoId()));
+        }
+        return doc;
+    }
+
+    // Minúsculas e sem acentos, mantendo os números; pontuação vira espaço ("oi,tudo" -> "oi tudo",
+    // "ana@senai.br" -> "ana senai br"), igual no índice e na consulta
+    private static String normalizar(String texto) {
+        if (texto == null) return "";
+        return NormalizacaoUtils.semAcentos(texto).replaceAll("[^\\p{L}\\p{N}\\s]", " ");
+    }
+}
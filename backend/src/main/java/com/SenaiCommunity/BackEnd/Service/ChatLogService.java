@@ -0,0 +1,466 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Entity.MensagemPrivada;
+import com.SenaiCommunity.BackEnd.Exception.GravacaoPendenteException;
+import com.SenaiCommunity.BackEnd.Service.Util.LogSegmentado;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Gravação write-behind das mensagens de chat (privadas e de grupo).
+ *
+ * O envio recebe o ID antecipadamente (mesmo gerador do Hibernate usado pelo save(), sem colisão),
+ * grava a mensagem num log local append-only (segmentos mapeados em memória) e já pode responder
+ * e fazer o broadcast. Um descarregador periódico insere as pendentes no MySQL em lotes JDBC,
+ * confirma o log e, depois do commit, aplica os efeitos derivados (resumo da conversa, notificações, contadores)
+ * numa transação própria: um efeito com falha é registrado e não bloqueia nem desfaz a gravação.
+ * Na inicialização, o que ficou sem confirmação é reenfileirado e gravado antes de o servidor aceitar
+ * requisições; como o ID é explícito, as linhas que já existem no banco (gravadas antes da queda) são puladas
+ * e os efeitos só são aplicados às linhas realmente inseridas.
+ *
+ * Uma linha que o banco recusa (usuário ou projeto removido, chave do cliente repetida) ou que falha
+ * {@code chat.log.max-tentativas} vezes com o banco no ar vai para a quarentena ({@code quarentena.jsonl}
+ * no diretório do log) e sai da fila, para não travar as mensagens seguintes. Com o banco fora do ar nada é
+ * contado como tentativa: a fila só espera.
+ *
+ * Leituras que dependem da mensagem estar no banco (edição, exclusão, marcar como lida) chamam
+ * {@link #aguardarGravacao(String)} ou {@link #aguardarGravacao(TipoMensagem, Long)} antes de abrir a
+ * transação: a descarga só acontece se aquela conversa/mensagem tiver algo pendente, e quem espera não
+ * segura uma conexão que a descarga possa precisar. Se a mensagem continuar pendente depois da descarga
+ * (banco indisponível), lançam {@link GravacaoPendenteException} para o cliente tentar de novo.
+ */
+@Service
+public class ChatLogService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatLogService.class);
+
+    public enum TipoMensagem { PRIVADA, GRUPO }
+
+    // autorId = remetente; alvoId = destinatário (privada) ou projeto (grupo);
+    // idCliente = chave de deduplicação enviada pelo cliente (opcional, ausente em registros antigos do log)
+    public record MensagemRegistrada(TipoMensagem tipo, long id, long autorId, long alvoId, Long sequencia,
+                                     String conteudo, LocalDateTime dataEnvio, List<AnexoRegistrado> anexos,
+                                     String idCliente) {}
+
+    public record AnexoRegistrado(long id, String url, String tipo) {}
+
+    // ordem = posição de chegada na fila, crescente (permite saber se tudo o que chegou até um ponto já saiu)
+    private record Pendente(MensagemRegistrada mensagem, LogSegmentado.Posicao posicao, long ordem) {}
+
+    private record Quarentena(MensagemRegistrada mensagem, String motivo, LocalDateTime data) {}
+
+    private record Chave(TipoMensagem tipo, long id) {}
+
+    @Value("${chat.log.dir:./chat-log}")
+    private String diretorio;
+
+    @Value("${chat.log.segmento-bytes:8388608}")
+    private int tamanhoSegmento;
+
+    @Value("${chat.log.lote:500}")
+    private int tamanhoLote;
+
+    // Falhas (com o banco no ar) até a mensagem ir para a quarentena
+    @Value("${chat.log.max-tentativas:5}")
+    private int maximoTentativas;
+
+    // true: força o log para o disco antes de responder cada envio (sobrevive à queda da máquina, não só do processo)
+    @Value("${chat.log.sincronizar-a-cada-mensagem:false}")
+    private boolean sincronizarACadaMensagem;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private LogSegmentado log;
+    private SessionFactoryImplementor sessionFactory;
+
+    // Fila em ordem de log; só sai daqui depois de gravada e confirmada
+    private final ArrayDeque<Pendente> pendentes = new ArrayDeque<>();
+    private final Set<Chave> idsPendentes = ConcurrentHashMap.newKeySet();
+    // Quantidade de pendentes por conversa ("privado:<conversa_key>" / "grupo:<projetoId>")
+    private final Map<String, Integer> pendentesPorConversa = new ConcurrentHashMap<>();
+    private final Object descarga = new Object();
+    // Falhas por mensagem; só acessado com o lock de descarga
+    private final Map<Chave, Integer> tentativas = new HashMap<>();
+    private long ultimaOrdemAnexada;
+    private volatile long ultimaOrdemConcluida;
+    private Path arquivoQuarentena;
+    private final Map<TipoMensagem, Consumer<List<MensagemRegistrada>>> aoGravar = new EnumMap<>(TipoMensagem.class);
+
+    @PostConstruct
+    public void abrir() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        log = new LogSegmentado(Path.of(diretorio), tamanhoSegmento);
+        arquivoQuarentena = Path.of(diretorio, "quarentena.jsonl");
+
+        int recuperadas = 0;
+        for (LogSegmentado.Entrada entrada : log.abrir()) {
+            try {
+                MensagemRegistrada mensagem = objectMapper.readValue(entrada.dados(), MensagemRegistrada.class);
+                adicionarPendente(mensagem, entrada.posicao());
+                recuperadas++;
+            } catch (Exception e) {
+                logger.error("Registro ilegível no log de chat (posição {}), ignorado: {}", entrada.posicao(), e.getMessage());
+            }
+        }
+        if (recuperadas > 0) {
+            logger.info("{} mensagens de chat recuperadas do log para gravação", recuperadas);
+        }
+    }
+
+    /**
+     * Registra o efeito derivado de cada tipo de mensagem, aplicado numa transação própria depois que a
+     * inserção é confirmada e apenas para as linhas efetivamente inseridas. Uma falha no efeito é registrada
+     * e não impede a gravação.
+     */
+    public void aoGravar(TipoMensagem tipo, Consumer<List<MensagemRegistrada>> efeito) {
+        aoGravar.put(tipo, efeito);
+    }
+
+    /**
+     * Próximo ID da entidade, do mesmo gerador que o Hibernate usa no save().
+     */
+    public long gerarId(Class<?> entidade) {
+        BeforeExecutionGenerator gerador = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(entidade).getGenerator();
+        try (StatelessSession sessao = sessionFactory.openStatelessSession()) {
+            return ((Number) gerador.generate((SharedSessionContractImplementor) sessao, null, null, EventType.INSERT)).longValue();
+        }
+    }
+
+    /**
+     * Grava a mensagem no log local. Ao retornar, ela será inserida no banco mesmo que o processo caia.
+     */
+    public void anexar(MensagemRegistrada mensagem) {
+        byte[] dados;
+        try {
+            dados = objectMapper.writeValueAsBytes(mensagem);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar a mensagem", e);
+        }
+
+        synchronized (this) {
+            LogSegmentado.Posicao posicao = log.anexar(dados);
+            adicionarPendente(mensagem, posicao);
+        }
+        if (sincronizarACadaMensagem) {
+            log.sincronizar();
+        }
+    }
+
+    public static String chavePrivada(Long usuarioA, Long usuarioB) {
+        return "privado:" + MensagemPrivada.chaveConversa(usuarioA, usuarioB);
+    }
+
+    public static String chaveGrupo(Long projetoId) {
+        return "grupo:" + projetoId;
+    }
+
+    /**
+     * Garante que as mensagens da conversa já estão no banco, descarregando o log só se ela tiver pendentes.
+     * Chamar fora de transação: a descarga usa uma conexão própria.
+     *
+     * @throws GravacaoPendenteException se o que estava pendente na chamada não pôde ser gravado
+     */
+    public void aguardarGravacao(String conversa) {
+        if (!pendentesPorConversa.containsKey(conversa)) return;
+
+        long ate;
+        synchronized (this) {
+            ate = ultimaOrdemAnexada;
+        }
+        descarregar();
+        // Mensagens que chegaram durante a descarga não contam: a fila sai em ordem
+        if (ultimaOrdemConcluida < ate && pendentesPorConversa.containsKey(conversa)) {
+            throw new GravacaoPendenteException("Mensagens ainda não gravadas. Tente novamente em instantes.");
+        }
+    }
+
+    /**
+     * Garante que a mensagem já está no banco, descarregando o log só se ela estiver pendente.
+     * Chamar fora de transação: a descarga usa uma conexão própria.
+     *
+     * @throws GravacaoPendenteException se a mensagem não pôde ser gravada
+     */
+    public void aguardarGravacao(TipoMensagem tipo, Long id) {
+        if (id == null) return;
+
+        Chave chave = new Chave(tipo, id);
+        if (idsPendentes.contains(chave)) {
+            descarregar();
+            if (idsPendentes.contains(chave)) {
+                throw new GravacaoPendenteException("Mensagem ainda não gravada. Tente novamente em instantes.");
+            }
+        }
+    }
+
+    /**
+     * Maior sequência entre as mensagens da conversa que ainda estão só no log (null se não houver).
+     */
+    public synchronized Long maiorSequenciaPendente(String conversa) {
+        if (!pendentesPorConversa.containsKey(conversa)) return null;
+        Long maior = null;
+        for (Pendente pendente : pendentes) {
+            Long sequencia = pendente.mensagem().sequencia();
+            if (sequencia != null && conversa.equals(conversa(pendente.mensagem())) && (maior == null || sequencia > maior)) {
+                maior = sequencia;
+            }
+        }
+        return maior;
+    }
+
+    /**
+     * O que foi recuperado do log vai para o banco antes de o servidor e os agendamentos começarem
+     * (os efeitos de gravação já foram registrados pelos serviços no @PostConstruct).
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!idsPendentes.isEmpty()) {
+            descarregar();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        descarregar();
+        log.sincronizar();
+    }
+
+    @Scheduled(fixedDelayString = "${chat.log.flush-ms:200}")
+    public void descarregar() {
+        synchronized (descarga) {
+            log.sincronizar();
+            while (true) {
+                List<Pendente> lote = proximoLote();
+                if (lote.isEmpty()) return;
+                int resolvidas = gravarLote(lote);
+                if (resolvidas > 0) {
+                    concluir(lote.subList(0, resolvidas));
+                }
+                if (resolvidas < lote.size() || lote.size() < tamanhoLote) return;
+            }
+        }
+    }
+
+    private synchronized List<Pendente> proximoLote() {
+        List<Pendente> lote = new ArrayList<>(Math.min(pendentes.size(), tamanhoLote));
+        for (Pendente pendente : pendentes) {
+            if (lote.size() == tamanhoLote) break;
+            lote.add(pendente);
+        }
+        return lote;
+    }
+
+    private void concluir(List<Pendente> lote) {
+        synchronized (this) {
+            for (int i = 0; i < lote.size(); i++) {
+                MensagemRegistrada mensagem = pendentes.pollFirst().mensagem();
+                Chave chave = new Chave(mensagem.tipo(), mensagem.id());
+                idsPendentes.remove(chave);
+                tentativas.remove(chave);
+                pendentesPorConversa.computeIfPresent(conversa(mensagem), (k, total) -> total > 1 ? total - 1 : null);
+            }
+        }
+        Pendente ultima = lote.get(lote.size() - 1);
+        log.confirmar(ultima.posicao());
+        ultimaOrdemConcluida = ultima.ordem();
+    }
+
+    // Sempre dentro do lock da instância (anexar) ou antes de o serviço ser publicado (abrir)
+    private void adicionarPendente(MensagemRegistrada mensagem, LogSegmentado.Posicao posicao) {
+        pendentes.addLast(new Pendente(mensagem, posicao, ++ultimaOrdemAnexada));
+        idsPendentes.add(new Chave(mensagem.tipo(), mensagem.id()));
+        pendentesPorConversa.merge(conversa(mensagem), 1, Integer::sum);
+    }
+
+    private static String conversa(MensagemRegistrada mensagem) {
+        return mensagem.tipo() == TipoMensagem.PRIVADA
+                ? chavePrivada(mensagem.autorId(), mensagem.alvoId())
+                : chaveGrupo(mensagem.alvoId());
+    }
+
+    // Quantas mensagens do início do lote foram resolvidas (gravadas ou em quarentena); as demais
+    // continuam na fila e são tentadas de novo no próximo ciclo
+    private int gravarLote(List<Pendente> lote) {
+        try {
+            aplicarEfeitos(inserirEmTransacao(lote));
+            return lote.size();
+        } catch (Exception e) {
+            // Banco fora do ar ou alguma mensagem inválida no lote: a gravação uma a uma separa os casos
+            logger.warn("Lote de {} mensagens de chat rejeitado; gravando individualmente: {}", lote.size(), e.getMessage());
+        }
+
+        int resolvidas = 0;
+        for (Pendente pendente : lote) {
+            MensagemRegistrada mensagem = pendente.mensagem();
+            try {
+                aplicarEfeitos(inserirEmTransacao(List.of(pendente)));
+            } catch (DataIntegrityViolationException e) {
+                // Recusa definitiva (usuário ou projeto removido, chave do cliente repetida)
+                if (!quarentena(pendente, e)) return resolvidas;
+            } catch (Exception e) {
+                if (!bancoDisponivel()) {
+                    logger.error("Banco indisponível; mensagens de chat aguardando gravação: {}", e.getMessage());
+                    return resolvidas;
+                }
+                int falhas = tentativas.merge(new Chave(mensagem.tipo(), mensagem.id()), 1, Integer::sum);
+                if (falhas < maximoTentativas) {
+                    logger.warn("Falha {} de {} ao gravar mensagem de chat {}: {}", falhas, maximoTentativas, mensagem.id(), e.getMessage());
+                    return resolvidas;
+                }
+                if (!quarentena(pendente, e)) return resolvidas;
+            }
+            resolvidas++;
+        }
+        return resolvidas;
+    }
+
+    private boolean bancoDisponivel() {
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Guarda a mensagem fora da fila (uma linha JSON por mensagem, forçada para o disco antes de sair do log)
+    private boolean quarentena(Pendente pendente, Exception causa) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new Quarentena(pendente.mensagem(), causa.getMessage(), LocalDateTime.now()));
+            try (FileChannel arquivo = FileChannel.open(arquivoQuarentena,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                arquivo.write(ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip());
+                arquivo.force(false);
+            }
+        } catch (IOException e) {
+            logger.error("Não foi possível pôr a mensagem de chat {} em quarentena; continua na fila: {}",
+                    pendente.mensagem().id(), e.getMessage());
+            return false;
+        }
+        logger.error("Mensagem de chat {} não pode ser gravada e foi para a quarentena ({}): {}",
+                pendente.mensagem().id(), arquivoQuarentena, causa.getMessage());
+        return true;
+    }
+
+    private Map<TipoMensagem, List<MensagemRegistrada>> inserirEmTransacao(List<Pendente> lote) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transacao.execute(status -> inserir(lote));
+    }
+
+    // Depois do commit da inserção, cada tipo numa transação própria; a falha de um efeito só é registrada
+    private void aplicarEfeitos(Map<TipoMensagem, List<MensagemRegistrada>> inseridas) {
+        inseridas.forEach((tipo, mensagens) -> {
+            Consumer<List<MensagemRegistrada>> efeito = aoGravar.get(tipo);
+            if (efeito == null || mensagens.isEmpty()) return;
+            try {
+                TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+                transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                transacao.executeWithoutResult(status -> efeito.accept(mensagens));
+            } catch (Exception e) {
+                logger.error("Efeitos da gravação de {} mensagens de chat ({}) não aplicados: {}", mensagens.size(), tipo, e.getMessage(), e);
+            }
+        });
+    }
+
+    private Map<TipoMensagem, List<MensagemRegistrada>> inserir(List<Pendente> lote) {
+        List<MensagemRegistrada> privadas = new ArrayList<>();
+        List<MensagemRegistrada> grupos = new ArrayList<>();
+        for (Pendente pendente : lote) {
+            (pendente.mensagem().tipo() == TipoMensagem.PRIVADA ? privadas : grupos).add(pendente.mensagem());
+        }
+
+        // No replay, linhas gravadas antes da queda já existem: são puladas. Qualquer outra recusa do banco
+        // (chave estrangeira, chave do cliente repetida) falha o lote, que é refeito linha a linha em gravarLote
+        // e a linha recusada vai para a quarentena
+        privadas = semJaGravadas("mensagem_privada", privadas);
+        grupos = semJaGravadas("mensagem_grupo", grupos);
+
+        Map<TipoMensagem, List<MensagemRegistrada>> inseridas = new EnumMap<>(TipoMensagem.class);
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO mensagem_privada (id, remetente_id, destinatario_id, sequencia, conteudo, data_envio, lida, conversa_key, id_mensagem_cliente) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, false, ?, ?)",
+                privadas.stream().map(m -> new Object[]{m.id(), m.autorId(), m.alvoId(), m.sequencia(), m.conteudo(), m.dataEnvio(),
+                        MensagemPrivada.chaveConversa(m.autorId(), m.alvoId()), m.idCliente()}).toList());
+        inseridas.put(TipoMensagem.PRIVADA, privadas);
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO mensagem_grupo (id, autor_id, projeto_id, sequencia, conteudo, data_envio, id_mensagem_cliente) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                grupos.stream().map(m -> new Object[]{m.id(), m.autorId(), m.alvoId(), m.sequencia(), m.conteudo(), m.dataEnvio(), m.idCliente()}).toList());
+        inseridas.put(TipoMensagem.GRUPO, grupos);
+
+        List<Object[]> anexos = new ArrayList<>();
+        for (MensagemRegistrada m : grupos) {
+            for (AnexoRegistrado anexo : m.anexos()) {
+                anexos.add(new Object[]{anexo.id(), anexo.url(), anexo.tipo(), m.id()});
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO arquivo_midia (id, url, tipo, tamanho, mensagem_grupo_id) VALUES (?, ?, ?, 0, ?)", anexos);
+
+        return inseridas;
+    }
+
+    // Mensagens do lote cujo ID ainda não existe na tabela (as anexos vão na mesma transação da mensagem)
+    private List<MensagemRegistrada> semJaGravadas(String tabela, List<MensagemRegistrada> mensagens) {
+        if (mensagens.isEmpty()) return mensagens;
+
+        String marcadores = String.join(",", Collections.nCopies(mensagens.size(), "?"));
+        Set<Long> existentes = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM " + tabela + " WHERE id IN (" + marcadores + ")", Long.class,
+                mensagens.stream().map(MensagemRegistrada::id).toArray()));
+        if (existentes.isEmpty()) return mensagens;
+
+        logger.info("{} mensagens de chat já gravadas em {} (replay do log), ignoradas: {}", existentes.size(), tabela, existentes);
+        return mensagens.stream().filter(m -> !existentes.contains(m.id())).toList();
+    }
+}
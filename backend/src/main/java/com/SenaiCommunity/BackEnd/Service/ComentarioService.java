@@ -1,5 +1,6 @@
 package com.SenaiCommunity.BackEnd.Service;
 
+import com.SenaiCommunity.BackEnd.Config.CacheConfig;
 import com.SenaiCommunity.BackEnd.DTO.ComentarioEntradaDTO;
 import com.SenaiCommunity.BackEnd.DTO.ComentarioSaidaDTO;
 import com.SenaiCommunity.BackEnd.Entity.Comentario;
@@ -9,23 +10,33 @@ import com.SenaiCommunity.BackEnd.Exception.ConteudoImproprioException;
 import com.SenaiCommunity.BackEnd.Repository.ComentarioRepository;
 import com.SenaiCommunity.BackEnd.Repository.PostagemRepository;
 import com.SenaiCommunity.BackEnd.Repository.UsuarioRepository;
+import com.SenaiCommunity.BackEnd.Security.UsuarioAtual;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 @Service
 public class  ComentarioService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 50;
+
+    // Quantidade de comentários de primeiro nível que acompanham cada postagem no feed
+    public static final int TAMANHO_PREVIA = 3;
+
     @Autowired
     private ComentarioRepository comentarioRepository;
 
@@ -41,11 +52,20 @@ public class  ComentarioService {
     @Autowired
     private FiltroProfanidadeService filtroProfanidade;
 
+    @Autowired
+    private CurtidasVisualizadorService curtidasVisualizadorService;
+
+    @Autowired
+    private UsuarioAtual usuarioAtual;
+
+    @Autowired
+    private TrendingService trendingService;
+
     /**
      * Cria um novo comentário, associa ao autor e à postagem, e o salva no banco.
      */
     @Transactional
-    @CacheEvict(value = "feed-postagens", allEntries = true)
+    @CacheEvict(value = CacheConfig.CACHE_FEED_POSTAGENS, key = "#postagemId")
     public ComentarioSaidaDTO criarComentario(Long postagemId, String autorUsername, ComentarioEntradaDTO dto) {
         Usuario autor = usuarioRepository.findByEmail(autorUsername)
                 .orElseThrow(() -> new NoSuchElementException("Usuário não encontrado"));
@@ -75,6 +95,8 @@ public class  ComentarioService {
 
         // 3. ▼▼▼ CORREÇÃO: Salva o comentário ANTES de notificar ▼▼▼
         Comentario comentarioSalvo = comentarioRepository.save(novoComentario);
+        postagemRepository.somarComentarios(postagem.getId(), 1);
+        trendingService.registrarComentario(postagem.getId(), 1);
 
         // 4. Envia notificações (Agora 'comentarioSalvo.getId()' funciona)
         if (parent != null) {
@@ -109,7 +131,7 @@ public class  ComentarioService {
      * Edita o conteúdo de um comentário existente, verificando a permissão do autor.
      */
     @Transactional
-    @CacheEvict(value = "feed-postagens", allEntries = true)
+    @CacheEvict(value = CacheConfig.CACHE_FEED_POSTAGENS, key = "#result.postagemId")
     public ComentarioSaidaDTO editarComentario(Long comentarioId, String username, String novoConteudo) {
         Comentario comentario = comentarioRepository.findById(comentarioId)
                 .orElseThrow(() -> new EntityNotFoundException("Comentário não encontrado"));
@@ -134,7 +156,7 @@ public class  ComentarioService {
      * Exclui um comentário, verificando se o solicitante é o autor do comentário ou o autor da postagem.
      */
     @Transactional
-    @CacheEvict(value = "feed-postagens", allEntries = true)
+    @CacheEvict(value = CacheConfig.CACHE_FEED_POSTAGENS, key = "#result.postagemId")
     public ComentarioSaidaDTO excluirComentario(Long comentarioId, String username) {
         Comentario comentario = comentarioRepository.findById(comentarioId)
                 .orElseThrow(() -> new EntityNotFoundException("Comentário não encontrado"));
@@ -149,14 +171,21 @@ public class  ComentarioService {
 
         // Primeiro criamos o DTO de retorno, pois após a exclusão perderemos os dados.
         ComentarioSaidaDTO dtoDeRetorno = toDTO(comentario);
+        // As respostas saem junto (cascata): o ranking perde o peso da subárvore inteira
+        List<LocalDateTime> criadosEm = comentarioRepository.findDatasCriacaoSubarvore(comentarioId);
         comentarioRepository.delete(comentario);
 
+        // Recontagem em vez de decremento: a exclusão remove também as respostas em cascata
+        comentarioRepository.flush();
+        postagemRepository.recontarComentarios(dtoDeRetorno.getPostagemId());
+        trendingService.removerComentarios(dtoDeRetorno.getPostagemId(), criadosEm);
+
         return dtoDeRetorno;
     }
 
 
     @Transactional
-    @CacheEvict(value = "feed-postagens", allEntries = true)
+    @CacheEvict(value = CacheConfig.CACHE_FEED_POSTAGENS, key = "#result.postagemId")
     public ComentarioSaidaDTO destacarComentario(Long comentarioId, String username) {
         Comentario comentario = comentarioRepository.findById(comentarioId)
                 .orElseThrow(() -> new EntityNotFoundException("Comentário não encontrado"));
@@ -173,32 +202,121 @@ public class  ComentarioService {
     }
 
 
+    /**
+     * Comentários de primeiro nível da postagem, paginados por cursor (destacado, id):
+     * destacados primeiro, depois em ordem de criação. Sem cursor retorna a primeira página.
+     */
+    @Transactional(readOnly = true)
+    public List<ComentarioSaidaDTO> listarComentarios(Long postagemId, Boolean cursorDestacado, Long cursorId, int tamanho) {
+        if (!postagemRepository.existsById(postagemId)) {
+            throw new EntityNotFoundException("Postagem não encontrada");
+        }
+        PageRequest pagina = PageRequest.of(0, Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA)));
+
+        List<Comentario> comentarios = (cursorDestacado != null && cursorId != null)
+                ? comentarioRepository.findRaizesApos(postagemId, cursorDestacado, cursorId, pagina)
+                : comentarioRepository.findRaizes(postagemId, pagina);
+
+        return aplicarCurtidasDoVisualizador(renderizar(comentarios));
+    }
+
+    /**
+     * Respostas de um comentário, paginadas por cursor (id), em ordem de criação.
+     */
+    @Transactional(readOnly = true)
+    public List<ComentarioSaidaDTO> listarRespostas(Long comentarioId, Long cursorId, int tamanho) {
+        if (!comentarioRepository.existsById(comentarioId)) {
+            throw new EntityNotFoundException("Comentário não encontrado");
+        }
+        PageRequest pagina = PageRequest.of(0, Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA)));
+
+        List<Comentario> respostas = comentarioRepository.findRespostasApos(
+                comentarioId, cursorId != null ? cursorId : 0L, pagina);
+
+        return aplicarCurtidasDoVisualizador(renderizar(respostas));
+    }
+
+    /**
+     * Prévia dos comentários de cada postagem (os {@link #TAMANHO_PREVIA} primeiros de primeiro nível),
+     * já ordenada e sem dados do visualizador. Três consultas para a página inteira.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<ComentarioSaidaDTO>> renderizarPrevias(Collection<Long> postagemIds) {
+        if (postagemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = comentarioRepository.findIdsPrevia(postagemIds, TAMANHO_PREVIA);
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Comentario> comentarios = new ArrayList<>(comentarioRepository.findComAutorByIdIn(ids));
+        comentarios.sort((a, b) -> {
+            if (a.isDestacado() != b.isDestacado()) return Boolean.compare(b.isDestacado(), a.isDestacado());
+            return a.getId().compareTo(b.getId());
+        });
+
+        Map<Long, List<ComentarioSaidaDTO>> porPostagem = new HashMap<>();
+        for (ComentarioSaidaDTO dto : renderizar(comentarios)) {
+            porPostagem.computeIfAbsent(dto.getPostagemId(), k -> new ArrayList<>()).add(dto);
+        }
+        return porPostagem;
+    }
+
+    // Renderização em lote, independente do visualizador; o total de respostas vem de uma única consulta agrupada
+    private List<ComentarioSaidaDTO> renderizar(List<Comentario> comentarios) {
+        if (comentarios.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Long> totalRespostas = new HashMap<>();
+        for (Object[] linha : comentarioRepository.contarRespostas(comentarios.stream().map(Comentario::getId).toList())) {
+            totalRespostas.put((Long) linha[0], (Long) linha[1]);
+        }
+
+        return comentarios.stream().map(c -> ComentarioSaidaDTO.builder()
+                        .id(c.getId())
+                        .conteudo(c.getConteudo())
+                        .dataCriacao(c.getDataCriacao())
+                        .autorId(c.getAutor().getId())
+                        .nomeAutor(c.getAutor().getNome())
+                        .urlFotoAutor(c.getAutor().getFotoPerfil())
+                        .postagemId(c.getPostagem().getId())
+                        .parentId(c.getParent() != null ? c.getParent().getId() : null)
+                        .replyingToName(c.getParent() != null ? c.getParent().getAutor().getNome() : null)
+                        .destacado(c.isDestacado())
+                        .totalCurtidas(c.getTotalCurtidas())
+                        .totalRespostas(totalRespostas.getOrDefault(c.getId(), 0L))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private List<ComentarioSaidaDTO> aplicarCurtidasDoVisualizador(List<ComentarioSaidaDTO> renderizados) {
+        CurtidasVisualizadorService.CurtidasDoVisualizador curtidas = curtidasVisualizadorService.resolver(
+                usuarioAtual.getId(), null, renderizados.stream().map(ComentarioSaidaDTO::getId).toList());
+
+        return renderizados.stream().map(c -> c.toBuilder()
+                        .curtidoPeloUsuario(curtidas.curtiuComentario(c.getId()))
+                        .totalCurtidas(curtidas.totalComentario(c.getId(), c.getTotalCurtidas()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     private ComentarioSaidaDTO toDTO(Comentario comentario) {
         if (comentario == null) return null;
 
         // --- INÍCIO DA LÓGICA DE CÁLCULO DAS CURTIDAS (CORREÇÃO) ---
 
-        // 1. Obter o ID do usuário logado (se houver)
-        Long usuarioLogadoId = null;
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        // Evita erro caso a requisição seja anônima (pouco provável com PreAuthorize, mas é uma boa prática)
-        if (!"anonymousUser".equals(username)) {
-            Usuario usuarioLogado = usuarioRepository.findByEmail(username).orElse(null);
-            if (usuarioLogado != null) {
-                usuarioLogadoId = usuarioLogado.getId();
-            }
-        }
+        // 1. Obter o ID do usuário logado (se houver), direto do contexto de autenticação
+        Long usuarioLogadoId = usuarioAtual.getId();
 
-        // 2. Calcular o total de curtidas
-        int totalCurtidasComentario = comentario.getCurtidas() != null ? comentario.getCurtidas().size() : 0;
+        // 2. Verificar se o usuário logado curtiu este comentário (consulta indexada, sem carregar as curtidas)
+        CurtidasVisualizadorService.CurtidasDoVisualizador curtidas = curtidasVisualizadorService
+                .resolver(usuarioLogadoId, null, List.of(comentario.getId()));
+        boolean curtidoPeloUsuarioComentario = curtidas.curtiuComentario(comentario.getId());
 
-        // 3. Verificar se o usuário logado curtiu este comentário
-        boolean curtidoPeloUsuarioComentario = false;
-        if (usuarioLogadoId != null && comentario.getCurtidas() != null) {
-            final Long finalUsuarioLogadoId = usuarioLogadoId; // Variável precisa ser final ou efetivamente final para usar no lambda
-            curtidoPeloUsuarioComentario = comentario.getCurtidas().stream()
-                    .anyMatch(curtida -> curtida.getUsuario().getId().equals(finalUsuarioLogadoId));
-        }
+        // 3. Total de curtidas vem do contador desnormalizado (mais o clique do usuário ainda no buffer)
+        int totalCurtidasComentario = curtidas.totalComentario(comentario.getId(), comentario.getTotalCurtidas());
 
         // --- FIM DA LÓGICA DE CÁLCULO DAS CURTIDAS ---
 
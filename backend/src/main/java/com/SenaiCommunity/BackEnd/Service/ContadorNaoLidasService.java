@@ -0,0 +1,85 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Repository.MensagemPrivadaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de mensagens privadas não lidas por usuário, mantidos em memória.
+ * Cada contador é carregado do MySQL na primeira leitura; depois disso só recebe
+ * incrementos/decrementos (aplicados após o commit, via {@link com.SenaiCommunity.BackEnd.Service.Util.AposCommit})
+ * e é reconciliado periodicamente com o banco.
+ */
+@Service
+public class ContadorNaoLidasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadorNaoLidasService.class);
+
+    @Autowired
+    private MensagemPrivadaRepository mensagemPrivadaRepository;
+
+    private final ConcurrentHashMap<Long, LongAdder> contadores = new ConcurrentHashMap<>();
+
+    public long obter(Long usuarioId) {
+        LongAdder contador = contadores.computeIfAbsent(usuarioId, id -> {
+            LongAdder novo = new LongAdder();
+            novo.add(mensagemPrivadaRepository.countByDestinatarioIdAndLidaIsFalse(id));
+            return novo;
+        });
+        return Math.max(0, contador.sum());
+    }
+
+    /**
+     * Soma ao contador já carregado; se ainda não foi carregado, a carga lerá o valor do banco.
+     */
+    public void somar(Long usuarioId, long delta) {
+        LongAdder contador = contadores.get(usuarioId);
+        if (contador != null) {
+            contador.add(delta);
+        }
+    }
+
+    public void descartar(Long usuarioId) {
+        contadores.remove(usuarioId);
+    }
+
+    /**
+     * Corrige desvios (corridas entre carga e incremento, alterações feitas fora do serviço)
+     * com uma consulta agrupada por lote de usuários carregados.
+     */
+    @Scheduled(initialDelay = 5 * 60 * 1000, fixedDelay = 5 * 60 * 1000)
+    public void reconciliar() {
+        List<Long> ids = new ArrayList<>(contadores.keySet());
+        int corrigidos = 0;
+        for (int inicio = 0; inicio < ids.size(); inicio += 500) {
+            List<Long> lote = ids.subList(inicio, Math.min(inicio + 500, ids.size()));
+
+            Map<Long, Long> reais = new HashMap<>();
+            for (Object[] linha : mensagemPrivadaRepository.contarNaoLidasPorDestinatario(lote)) {
+                reais.put((Long) linha[0], (Long) linha[1]);
+            }
+
+            for (Long id : lote) {
+                LongAdder contador = contadores.get(id);
+                long real = reais.getOrDefault(id, 0L);
+                if (contador != null && contador.sum() != real) {
+                    contador.add(real - contador.sum());
+                    corrigidos++;
+                }
+            }
+        }
+        if (corrigidos > 0) {
+            logger.info("Contadores de não lidas reconciliados: {} corrigidos", corrigidos);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Entity.Conversa;
+import com.SenaiCommunity.BackEnd.Entity.MensagemPrivada;
+import com.SenaiCommunity.BackEnd.Repository.ConversaRepository;
+import com.SenaiCommunity.BackEnd.Repository.MensagemPrivadaRepository;
+import com.SenaiCommunity.BackEnd.Repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Mantém a tabela "conversa" (resumo por par de usuários) em sincronia com as mensagens privadas.
+ * Deve ser chamado dentro da mesma transação que altera a mensagem.
+ */
+@Service
+public class ConversaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversaService.class);
+
+    private static final int TAMANHO_PREVIA = 255;
+
+    @Autowired
+    private ConversaRepository conversaRepository;
+
+    @Autowired
+    private MensagemPrivadaRepository mensagemPrivadaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    /**
+     * Bancos que já tinham mensagens antes da tabela existir recebem a carga inicial uma única vez.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void preencherSeVazia() {
+        try {
+            int semChave = mensagemPrivadaRepository.preencherConversaKey();
+            if (semChave > 0) {
+                logger.info("conversa_key preenchida em {} mensagens privadas", semChave);
+            }
+            if (conversaRepository.count() == 0 && mensagemPrivadaRepository.count() > 0) {
+                int criadas = conversaRepository.preencherAPartirDasMensagens();
+                logger.info("Tabela conversa preenchida com {} conversas", criadas);
+            }
+        } catch (Exception e) {
+            logger.error("Falha ao preencher a tabela conversa: {}", e.getMessage());
+        }
+    }
+
+    public List<Conversa> listarDoUsuario(Long usuarioId) {
+        return conversaRepository.findDoUsuario(usuarioId);
+    }
+
+    public void registrarMensagem(MensagemPrivada mensagem) {
+        Long remetenteId = mensagem.getRemetente().getId();
+        Long destinatarioId = mensagem.getDestinatario().getId();
+        long menor = Math.min(remetenteId, destinatarioId);
+        long maior = Math.max(remetenteId, destinatarioId);
+
+        // A mensagem fica não lida para o destinatário (nenhum lado, se for para si mesmo)
+        boolean paraSiMesmo = remetenteId.equals(destinatarioId);
+        int naoLidasMenor = !paraSiMesmo && destinatarioId == menor ? 1 : 0;
+        int naoLidasMaior = !paraSiMesmo && destinatarioId == maior ? 1 : 0;
+
+        conversaRepository.registrarMensagem(menor, maior, mensagem.getId(), previa(mensagem.getConteudo()),
+                mensagem.getDataEnvio(), remetenteId, naoLidasMenor, naoLidasMaior);
+    }
+
+    public void registrarEdicao(MensagemPrivada mensagem) {
+        Long a = mensagem.getRemetente().getId();
+        Long b = mensagem.getDestinatario().getId();
+        conversaRepository.atualizarPrevia(Math.min(a, b), Math.max(a, b), mensagem.getId(), previa(mensagem.getConteudo()));
+    }
+
+    public void marcarComoLida(Long leitorId, Long outroUsuarioId) {
+        long menor = Math.min(leitorId, outroUsuarioId);
+        long maior = Math.max(leitorId, outroUsuarioId);
+        if (leitorId == menor) {
+            conversaRepository.zerarNaoLidasMenor(menor, maior);
+        } else {
+            conversaRepository.zerarNaoLidasMaior(menor, maior);
+        }
+    }
+
+    public void excluir(Long usuarioA, Long usuarioB) {
+        conversaRepository.deletarPorPar(Math.min(usuarioA, usuarioB), Math.max(usuarioA, usuarioB));
+    }
+
+    /**
+     * Recalcula o resumo do par após a exclusão de uma mensagem (pode ter sido a última ou uma não lida).
+     * Usa a ordenação por ID e as contagens do par, sem varrer outras conversas.
+     */
+    public void recalcular(Long usuarioA, Long usuarioB) {
+        long menor = Math.min(usuarioA, usuarioB);
+        long maior = Math.max(usuarioA, usuarioB);
+
+        List<MensagemPrivada> ultima = mensagemPrivadaRepository.findHistorico(
+                MensagemPrivada.chaveConversa(menor, maior), PageRequest.of(0, 1));
+        if (ultima.isEmpty()) {
+            conversaRepository.deletarPorPar(menor, maior);
+            return;
+        }
+
+        MensagemPrivada mensagem = ultima.get(0);
+        Conversa conversa = conversaRepository.findPorPar(menor, maior).orElseGet(() -> {
+            Conversa nova = new Conversa();
+            nova.setUsuarioMenor(usuarioRepository.getReferenceById(menor));
+            nova.setUsuarioMaior(usuarioRepository.getReferenceById(maior));
+            return nova;
+        });
+        conversa.setUltimaMensagemId(mensagem.getId());
+        conversa.setPreviaUltimaMensagem(previa(mensagem.getConteudo()));
+        conversa.setDataUltimaMensagem(mensagem.getDataEnvio());
+        conversa.setRemetenteUltimaMensagemId(mensagem.getRemetente().getId());
+        conversa.setNaoLidasMenor((int) mensagemPrivadaRepository.countByRemetenteIdAndDestinatarioIdAndLidaIsFalse(maior, menor));
+        conversa.setNaoLidasMaior((int) mensagemPrivadaRepository.countByRemetenteIdAndDestinatarioIdAndLidaIsFalse(menor, maior));
+        conversaRepository.save(conversa);
+    }
+
+    private static String previa(String conteudo) {
+        if (conteudo == null) return null;
+        return conteudo.length() <= TAMANHO_PREVIA ? conteudo : conteudo.substring(0, TAMANHO_PREVIA);
+    }
+}
@@ -0,0 +1,369 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Config.CacheConfig;
+import com.SenaiCommunity.BackEnd.Entity.Comentario;
+import com.SenaiCommunity.BackEnd.Entity.Postagem;
+import com.SenaiCommunity.BackEnd.Entity.Usuario;
+import com.SenaiCommunity.BackEnd.Repository.ComentarioRepository;
+import com.SenaiCommunity.BackEnd.Repository.CurtidaRepository;
+import com.SenaiCommunity.BackEnd.Repository.PostagemRepository;
+import com.SenaiCommunity.BackEnd.Repository.UsuarioRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Buffer em memória para as curtidas.
+ * Cliques repetidos do mesmo usuário no mesmo alvo dentro da janela se anulam; só a mudança
+ * líquida é gravada, em lotes JDBC. A constraint única de curtida + INSERT IGNORE tornam o
+ * flush idempotente (inclusive com mais de uma instância da aplicação).
+ */
+@Service
+public class CurtidaBufferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurtidaBufferService.class);
+
+    public enum TipoAlvo { POSTAGEM, COMENTARIO }
+
+    // Pares por consulta ao ler o estado do lote no banco
+    private static final int TAMANHO_CONSULTA = 500;
+
+    @Value("${curtidas.buffer.janela-ms:2000}")
+    private long janelaMs;
+
+    // Entradas já gravadas continuam um tempo na memória: evitam consulta no próximo clique
+    @Value("${curtidas.buffer.retencao-ms:60000}")
+    private long retencaoMs;
+
+    @Autowired
+    private CurtidaRepository curtidaRepository;
+
+    @Autowired
+    private PostagemRepository postagemRepository;
+
+    @Autowired
+    private ComentarioRepository comentarioRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private NotificacaoService notificacaoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    private final ConcurrentHashMap<Chave, Entrada> pendentes = new ConcurrentHashMap<>();
+
+    /**
+     * Alterna a curtida do usuário no alvo e retorna o novo estado desejado (true = curtido).
+     */
+    public boolean alternar(Long usuarioId, TipoAlvo tipo, Long alvoId, Long postagemId) {
+        Chave chave = new Chave(usuarioId, tipo, alvoId);
+
+        // Estado do banco só é consultado quando o par (usuário, alvo) não está no buffer
+        Entrada conhecida = pendentes.get(chave);
+        boolean estadoBanco = conhecida != null ? conhecida.persistido : existeNoBanco(chave);
+
+        Entrada nova = pendentes.compute(chave, (k, atual) -> atual != null
+                ? atual.alternada()
+                : new Entrada(postagemId, estadoBanco, !estadoBanco, System.currentTimeMillis()));
+        return nova.desejado;
+    }
+
+    /**
+     * Estado pendente (ainda não gravado) do usuário no alvo, ou null se não houver.
+     * Usado para que o próprio usuário veja o que acabou de fazer antes do flush.
+     */
+    public Boolean estadoPendente(Long usuarioId, TipoAlvo tipo, Long alvoId) {
+        Entrada entrada = pendentes.get(new Chave(usuarioId, tipo, alvoId));
+        return entrada != null && entrada.suja() ? entrada.desejado : null;
+    }
+
+    @Scheduled(fixedDelayString = "${curtidas.buffer.flush-ms:1000}")
+    public void flush() {
+        descarregar(janelaMs);
+    }
+
+    @PreDestroy
+    public void descarregarTudo() {
+        descarregar(0);
+    }
+
+    private void descarregar(long idadeMinimaMs) {
+        long agora = System.currentTimeMillis();
+        Map<Chave, Entrada> lote = new HashMap<>();
+
+        for (Map.Entry<Chave, Entrada> e : pendentes.entrySet()) {
+            Entrada entrada = e.getValue();
+            if (entrada.suja()) {
+                if (agora - entrada.alteradaEm >= idadeMinimaMs) {
+                    lote.put(e.getKey(), entrada);
+                }
+            } else if (agora - entrada.alteradaEm >= retencaoMs) {
+                // remove(chave, valor) compara identidade: não remove se houve clique nesse meio tempo
+                pendentes.remove(e.getKey(), entrada);
+            }
+        }
+
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        ResultadoFlush resultado;
+        try {
+            resultado = new TransactionTemplate(transactionManager).execute(status -> gravar(lote));
+        } catch (Exception ex) {
+            // As entradas continuam sujas e serão tentadas de novo no próximo ciclo
+            logger.error("Falha ao gravar lote de {} curtidas: {}", lote.size(), ex.getMessage());
+            return;
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_FEED_POSTAGENS);
+        resultado.saldoPostagens().forEach(trendingService::registrarCurtida);
+        for (Long postagemId : resultado.postagensAfetadas()) {
+            cache.evict(postagemId);
+            messagingTemplate.convertAndSend("/topic/publico", Map.of("tipo", "atualizacao_curtida", "id", postagemId));
+        }
+
+        // Marca como gravado o estado do snapshot; cliques feitos durante a gravação continuam pendentes
+        lote.forEach((chave, gravada) ->
+                pendentes.computeIfPresent(chave, (k, atual) -> atual.comPersistido(gravada.desejado)));
+    }
+
+    private ResultadoFlush gravar(Map<Chave, Entrada> lote) {
+        // Com rewriteBatchedStatements o driver não informa a contagem por linha (SUCCESS_NO_INFO): o lote só
+        // leva o que de fato muda o banco, senão um INSERT IGNORE de curtida já existente contaria como nova
+        Set<Chave> existentes = existentes(lote.keySet());
+        List<Map.Entry<Chave, Entrada>> insercoes = new ArrayList<>();
+        List<Map.Entry<Chave, Entrada>> remocoes = new ArrayList<>();
+        for (Map.Entry<Chave, Entrada> e : lote.entrySet()) {
+            boolean existe = existentes.contains(e.getKey());
+            if (e.getValue().desejado && !existe) insercoes.add(e);
+            else if (!e.getValue().desejado && existe) remocoes.add(e);
+        }
+
+        int[] inseridas = executarLote(insercoes,
+                "INSERT IGNORE INTO curtida (usuario_id, postagem_id) VALUES (?, ?)",
+                "INSERT IGNORE INTO curtida (usuario_id, comentario_id) VALUES (?, ?)");
+        int[] removidas = executarLote(remocoes,
+                "DELETE FROM curtida WHERE usuario_id = ? AND postagem_id = ?",
+                "DELETE FROM curtida WHERE usuario_id = ? AND comentario_id = ?");
+
+        // Saldo por alvo, contando apenas as linhas efetivamente alteradas
+        Map<Chave, Integer> saldo = new HashMap<>();
+        List<Map.Entry<Chave, Entrada>> novasCurtidas = new ArrayList<>();
+        Set<Long> postagensAfetadas = new HashSet<>();
+        for (int i = 0; i < insercoes.size(); i++) {
+            if (afetou(inseridas[i])) {
+                saldo.merge(insercoes.get(i).getKey().alvo(), 1, Integer::sum);
+                novasCurtidas.add(insercoes.get(i));
+                postagensAfetadas.add(insercoes.get(i).getValue().postagemId);
+            }
+        }
+        for (int i = 0; i < remocoes.size(); i++) {
+            if (afetou(removidas[i])) {
+                saldo.merge(remocoes.get(i).getKey().alvo(), -1, Integer::sum);
+                postagensAfetadas.add(remocoes.get(i).getValue().postagemId);
+            }
+        }
+
+        List<Object[]> saldoPostagens = new ArrayList<>();
+        List<Object[]> saldoComentarios = new ArrayList<>();
+        Map<Long, Integer> saldoPorPostagem = new HashMap<>();
+        saldo.forEach((alvo, delta) -> {
+            if (delta != 0) {
+                (alvo.tipo == TipoAlvo.POSTAGEM ? saldoPostagens : saldoComentarios).add(new Object[]{delta, alvo.alvoId});
+                if (alvo.tipo == TipoAlvo.POSTAGEM) saldoPorPostagem.put(alvo.alvoId, delta);
+            }
+        });
+        if (!saldoPostagens.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE postagem SET total_curtidas = GREATEST(total_curtidas + ?, 0) WHERE id = ?", saldoPostagens);
+        }
+        if (!saldoComentarios.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE comentario SET total_curtidas = GREATEST(total_curtidas + ?, 0) WHERE id = ?", saldoComentarios);
+        }
+
+        notificarNovasCurtidas(novasCurtidas);
+        return new ResultadoFlush(postagensAfetadas, saldoPorPostagem);
+    }
+
+    private int[] executarLote(List<Map.Entry<Chave, Entrada>> entradas, String sqlPostagem, String sqlComentario) {
+        int[] resultado = new int[entradas.size()];
+        for (TipoAlvo tipo : TipoAlvo.values()) {
+            List<Integer> posicoes = new ArrayList<>();
+            List<Object[]> argumentos = new ArrayList<>();
+            for (int i = 0; i < entradas.size(); i++) {
+                Chave chave = entradas.get(i).getKey();
+                if (chave.tipo == tipo) {
+                    posicoes.add(i);
+                    argumentos.add(new Object[]{chave.usuarioId, chave.alvoId});
+                }
+            }
+            if (argumentos.isEmpty()) continue;
+
+            int[] contagens = jdbcTemplate.batchUpdate(tipo == TipoAlvo.POSTAGEM ? sqlPostagem : sqlComentario, argumentos);
+            for (int i = 0; i < contagens.length; i++) {
+                resultado[posicoes.get(i)] = contagens[i];
+            }
+        }
+        return resultado;
+    }
+
+    // SUCCESS_NO_INFO conta como alterada porque o lote já foi filtrado pelo estado do banco; só uma corrida com
+    // outra instância no mesmo par escapa disso, e a reconciliação dos contadores corrige
+    private static boolean afetou(int contagem) {
+        return contagem > 0 || contagem == Statement.SUCCESS_NO_INFO;
+    }
+
+    private void notificarNovasCurtidas(List<Map.Entry<Chave, Entrada>> novasCurtidas) {
+        if (novasCurtidas.isEmpty()) return;
+
+        Set<Long> usuarioIds = new HashSet<>();
+        Set<Long> postagemIds = new HashSet<>();
+        Set<Long> comentarioIds = new HashSet<>();
+        for (Map.Entry<Chave, Entrada> e : novasCurtidas) {
+            usuarioIds.add(e.getKey().usuarioId);
+            (e.getKey().tipo == TipoAlvo.POSTAGEM ? postagemIds : comentarioIds).add(e.getKey().alvoId);
+        }
+
+        Map<Long, Usuario> usuarios = usuarioRepository.findAllById(usuarioIds).stream()
+                .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+        Map<Long, Postagem> postagens = postagemIds.isEmpty() ? Map.of()
+                : postagemRepository.findComAutorByIdIn(postagemIds).stream()
+                .collect(Collectors.toMap(Postagem::getId, Function.identity()));
+        Map<Long, Comentario> comentarios = comentarioIds.isEmpty() ? Map.of()
+                : comentarioRepository.findComAutorByIdIn(comentarioIds).stream()
+                .collect(Collectors.toMap(Comentario::getId, Function.identity()));
+
+        for (Map.Entry<Chave, Entrada> e : novasCurtidas) {
+            Chave chave = e.getKey();
+            Usuario usuario = usuarios.get(chave.usuarioId);
+            if (usuario == null) continue;
+
+            if (chave.tipo == TipoAlvo.POSTAGEM) {
+                Postagem postagem = postagens.get(chave.alvoId);
+                // NOTIFICAR o autor da postagem (se não for ele mesmo)
+                if (postagem != null && !postagem.getAutor().getId().equals(usuario.getId())) {
+                    notificacaoService.criarNotificacao(
+                            postagem.getAutor(),
+                            usuario.getNome() + " curtiu sua postagem.",
+                            "CURTIDA_POST",
+                            postagem.getId(), // PostID
+                            null // Não é um comentário
+                    );
+                }
+            } else {
+                Comentario comentario = comentarios.get(chave.alvoId);
+                if (comentario != null && !comentario.getAutor().getId().equals(usuario.getId())) {
+                    notificacaoService.criarNotificacao(
+                            comentario.getAutor(),
+                            usuario.getNome() + " curtiu seu comentário.",
+                            "CURTIDA_COMENTARIO",
+                            e.getValue().postagemId, // PostID
+                            comentario.getId() // CommentID
+                    );
+                }
+            }
+        }
+    }
+
+    // Pares (usuário, alvo) do lote que já estão na tabela curtida, lidos na transação da gravação
+    private Set<Chave> existentes(Collection<Chave> chaves) {
+        Set<Chave> existentes = new HashSet<>();
+        for (TipoAlvo tipo : TipoAlvo.values()) {
+            String coluna = tipo == TipoAlvo.POSTAGEM ? "postagem_id" : "comentario_id";
+            List<Chave> doTipo = chaves.stream().filter(c -> c.tipo == tipo).toList();
+            for (int inicio = 0; inicio < doTipo.size(); inicio += TAMANHO_CONSULTA) {
+                List<Chave> parte = doTipo.subList(inicio, Math.min(inicio + TAMANHO_CONSULTA, doTipo.size()));
+                String pares = String.join(",", Collections.nCopies(parte.size(), "(?, ?)"));
+                Object[] argumentos = parte.stream().flatMap(c -> Stream.of(c.usuarioId, c.alvoId)).toArray();
+                jdbcTemplate.query("SELECT usuario_id, " + coluna + " FROM curtida WHERE (usuario_id, " + coluna + ") IN (" + pares + ")",
+                        (rs, i) -> existentes.add(new Chave(rs.getLong(1), tipo, rs.getLong(2))), argumentos);
+            }
+        }
+        return existentes;
+    }
+
+    private boolean existeNoBanco(Chave chave) {
+        return chave.tipo == TipoAlvo.POSTAGEM
+                ? curtidaRepository.existsByUsuarioIdAndPostagemId(chave.usuarioId, chave.alvoId)
+                : curtidaRepository.existsByUsuarioIdAndComentarioId(chave.usuarioId, chave.alvoId);
+    }
+
+    private record ResultadoFlush(Set<Long> postagensAfetadas, Map<Long, Integer> saldoPostagens) {}
+
+    private record Chave(Long usuarioId, TipoAlvo tipo, Long alvoId) {
+        // Chave do alvo (sem o usuário), usada para somar o saldo dos contadores
+        Chave alvo() {
+            return new Chave(null, tipo, alvoId);
+        }
+    }
+
+    /**
+     * Imutável: cada clique gera uma nova instância, o que permite remove(chave, valor) por identidade.
+     */
+    private static final class Entrada {
+        final Long postagemId;   // postagem do alvo (a própria, ou a do comentário)
+        final boolean persistido; // estado gravado no banco
+        final boolean desejado;   // estado após o último clique
+        final long alteradaEm;
+
+        Entrada(Long postagemId, boolean persistido, boolean desejado, long alteradaEm) {
+            this.postagemId = postagemId;
+            this.persistido = persistido;
+            this.desejado = desejado;
+            this.alteradaEm = alteradaEm;
+        }
+
+        boolean suja() {
+            return persistido != desejado;
+        }
+
+        Entrada alternada() {
+            // A janela conta a partir do primeiro clique ainda não gravado
+            long inicio = suja() ? alteradaEm : System.currentTimeMillis();
+            return new Entrada(postagemId, persistido, !desejado, inicio);
+        }
+
+        Entrada comPersistido(boolean gravado) {
+            return new Entrada(postagemId, gravado, desejado, System.currentTimeMillis());
+        }
+    }
+}
@@ -1,27 +1,18 @@
 package com.SenaiCommunity.BackEnd.Service;
 
-import com.SenaiCommunity.BackEnd.Entity.Comentario;
-import com.SenaiCommunity.BackEnd.Entity.Curtida;
-import com.SenaiCommunity.BackEnd.Entity.Postagem;
 import com.SenaiCommunity.BackEnd.Entity.Usuario;
 import com.SenaiCommunity.BackEnd.Repository.ComentarioRepository;
-import com.SenaiCommunity.BackEnd.Repository.CurtidaRepository;
 import com.SenaiCommunity.BackEnd.Repository.PostagemRepository;
 import com.SenaiCommunity.BackEnd.Repository.UsuarioRepository;
+import com.SenaiCommunity.BackEnd.Security.UsuarioAtual;
+import com.SenaiCommunity.BackEnd.Service.CurtidaBufferService.TipoAlvo;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.Optional;
 
 @Service
 public class CurtidaService {
 
-    @Autowired
-    private CurtidaRepository curtidaRepository;
-
     @Autowired
     private UsuarioRepository usuarioRepository;
 
@@ -32,70 +23,41 @@ public class CurtidaService {
     private ComentarioRepository comentarioRepository;
 
     @Autowired
-    private NotificacaoService notificacaoService;
+    private CurtidaBufferService curtidaBufferService;
 
-    @Transactional
-    @CacheEvict(value = "feed-postagens", allEntries = true)
+    @Autowired
+    private UsuarioAtual usuarioAtual;
+
+    /**
+     * Alterna a curtida no buffer; a gravação (linha em curtida, contadores, notificação e
+     * invalidação do cache do feed) acontece no flush do {@link CurtidaBufferService}.
+     * Retorna o ID da postagem afetada.
+     */
     public Long toggleCurtida(String username, Long postagemId, Long comentarioId) {
-        Usuario usuario = usuarioRepository.findByEmail(username)
-                .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado"));
+        Long usuarioId = usuarioAtual.getId();
+        if (usuarioId == null) {
+            usuarioId = usuarioRepository.findByEmail(username)
+                    .map(Usuario::getId)
+                    .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado"));
+        }
 
         if (comentarioId != null) {
             // Lógica para curtir/descurtir comentário
-            Optional<Curtida> curtidaExistente = curtidaRepository.findByUsuarioIdAndComentarioId(usuario.getId(), comentarioId);
-
-            Comentario comentario = comentarioRepository.findById(comentarioId)
+            Long postagemDoComentario = comentarioRepository.findPostagemIdByComentarioId(comentarioId)
                     .orElseThrow(() -> new EntityNotFoundException("Comentário não encontrado"));
-
-            if (curtidaExistente.isPresent()) {
-                curtidaRepository.delete(curtidaExistente.get());
-            } else {
-                Curtida novaCurtida = new Curtida();
-                novaCurtida.setUsuario(usuario);
-                novaCurtida.setComentario(comentario);
-                curtidaRepository.save(novaCurtida);
-
-                if (!comentario.getAutor().getId().equals(usuario.getId())) {
-                    notificacaoService.criarNotificacao(
-                            comentario.getAutor(),
-                            usuario.getNome() + " curtiu seu comentário.",
-                            "CURTIDA_COMENTARIO",
-                            comentario.getPostagem().getId(), // PostID
-                            comentario.getId() // CommentID
-                    );
-                }
-            }
-            return comentario.getPostagem().getId(); // Retorna o ID da postagem pai para notificação
+            curtidaBufferService.alternar(usuarioId, TipoAlvo.COMENTARIO, comentarioId, postagemDoComentario);
+            return postagemDoComentario; // Retorna o ID da postagem pai para notificação
 
         } else if (postagemId != null) {
             // Lógica para curtir/descurtir postagem
-            Optional<Curtida> curtidaExistente = curtidaRepository.findByUsuarioIdAndPostagemId(usuario.getId(), postagemId);
-
-            if (curtidaExistente.isPresent()) {
-                curtidaRepository.delete(curtidaExistente.get());
-            } else {
-                Postagem postagem = postagemRepository.findById(postagemId)
-                        .orElseThrow(() -> new EntityNotFoundException("Postagem não encontrada"));
-                Curtida novaCurtida = new Curtida();
-                novaCurtida.setUsuario(usuario);
-                novaCurtida.setPostagem(postagem);
-                curtidaRepository.save(novaCurtida);
-
-                // NOTIFICAR o autor da postagem (se não for ele mesmo)
-                if (!postagem.getAutor().getId().equals(usuario.getId())) {
-                    notificacaoService.criarNotificacao(
-                            postagem.getAutor(),
-                            usuario.getNome() + " curtiu sua postagem.",
-                            "CURTIDA_POST",
-                            postagem.getId(), // PostID
-                            null // Não é um comentário
-                    );
-                }
+            if (!postagemRepository.existsById(postagemId)) {
+                throw new EntityNotFoundException("Postagem não encontrada");
             }
+            curtidaBufferService.alternar(usuarioId, TipoAlvo.POSTAGEM, postagemId, postagemId);
             return postagemId;
 
         } else {
             throw new IllegalArgumentException("É necessário fornecer postagemId ou comentarioId.");
         }
     }
-}
\ No newline at end of file
+}
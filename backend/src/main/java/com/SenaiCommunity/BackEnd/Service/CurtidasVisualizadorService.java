@@ -0,0 +1,111 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Repository.CurtidaRepository;
+import com.SenaiCommunity.BackEnd.Service.CurtidaBufferService.TipoAlvo;
+import com.SenaiCommunity.BackEnd.Service.Util.LongHashSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolve, em uma única consulta, quais postagens e comentários de uma página
+ * foram curtidos pelo usuário que está visualizando.
+ * Cliques ainda no buffer de curtidas são sobrepostos ao resultado do banco,
+ * para que o próprio usuário veja o que acabou de fazer.
+ */
+@Service
+public class CurtidasVisualizadorService {
+
+    // IN () vazio não é SQL válido; -1 nunca corresponde a um ID real
+    private static final List<Long> LISTA_SENTINELA = List.of(-1L);
+
+    @Autowired
+    private CurtidaRepository curtidaRepository;
+
+    @Autowired
+    private CurtidaBufferService curtidaBufferService;
+
+    public CurtidasDoVisualizador resolver(Long usuarioId, Collection<Long> postagemIds, Collection<Long> comentarioIds) {
+        boolean semPostagens = postagemIds == null || postagemIds.isEmpty();
+        boolean semComentarios = comentarioIds == null || comentarioIds.isEmpty();
+        if (usuarioId == null || (semPostagens && semComentarios)) {
+            return CurtidasDoVisualizador.VAZIO;
+        }
+
+        List<Object[]> linhas = curtidaRepository.findAlvosCurtidosPorUsuario(
+                usuarioId,
+                semPostagens ? LISTA_SENTINELA : postagemIds,
+                semComentarios ? LISTA_SENTINELA : comentarioIds);
+
+        LongHashSet postagens = new LongHashSet(linhas.size());
+        LongHashSet comentarios = new LongHashSet(linhas.size());
+        for (Object[] linha : linhas) {
+            if (linha[0] != null) postagens.add(((Number) linha[0]).longValue());
+            if (linha[1] != null) comentarios.add(((Number) linha[1]).longValue());
+        }
+
+        Map<Long, Integer> ajustePostagens = semPostagens ? Collections.emptyMap()
+                : sobreporPendentes(usuarioId, TipoAlvo.POSTAGEM, postagemIds, postagens);
+        Map<Long, Integer> ajusteComentarios = semComentarios ? Collections.emptyMap()
+                : sobreporPendentes(usuarioId, TipoAlvo.COMENTARIO, comentarioIds, comentarios);
+        return new CurtidasDoVisualizador(postagens, comentarios, ajustePostagens, ajusteComentarios);
+    }
+
+    // Aplica o estado pendente no conjunto e devolve o ajuste (+1/-1) que o contador ainda não refletiu
+    private Map<Long, Integer> sobreporPendentes(Long usuarioId, TipoAlvo tipo, Collection<Long> ids, LongHashSet curtidos) {
+        Map<Long, Integer> ajustes = null;
+        for (Long id : ids) {
+            Boolean pendente = curtidaBufferService.estadoPendente(usuarioId, tipo, id);
+            if (pendente == null) continue;
+
+            if (pendente) curtidos.add(id); else curtidos.remove(id);
+            if (ajustes == null) ajustes = new HashMap<>();
+            ajustes.put(id, pendente ? 1 : -1);
+        }
+        return ajustes != null ? ajustes : Collections.emptyMap();
+    }
+
+    /**
+     * IDs curtidos pelo visualizador, consultados em O(1) durante a conversão para DTO.
+     */
+    public static class CurtidasDoVisualizador {
+
+        public static final CurtidasDoVisualizador VAZIO = new CurtidasDoVisualizador(
+                new LongHashSet(0), new LongHashSet(0), Collections.emptyMap(), Collections.emptyMap());
+
+        private final LongHashSet postagens;
+        private final LongHashSet comentarios;
+        private final Map<Long, Integer> ajustePostagens;
+        private final Map<Long, Integer> ajusteComentarios;
+
+        private CurtidasDoVisualizador(LongHashSet postagens, LongHashSet comentarios,
+                                       Map<Long, Integer> ajustePostagens, Map<Long, Integer> ajusteComentarios) {
+            this.postagens = postagens;
+            this.comentarios = comentarios;
+            this.ajustePostagens = ajustePostagens;
+            this.ajusteComentarios = ajusteComentarios;
+        }
+
+        /** Total de curtidas da postagem somando o clique do visualizador que ainda está no buffer. */
+        public int totalPostagem(Long postagemId, int totalGravado) {
+            return Math.max(0, totalGravado + ajustePostagens.getOrDefault(postagemId, 0));
+        }
+
+        public int totalComentario(Long comentarioId, int totalGravado) {
+            return Math.max(0, totalGravado + ajusteComentarios.getOrDefault(comentarioId, 0));
+        }
+
+        public boolean curtiuPostagem(Long postagemId) {
+            return postagemId != null && postagens.contains(postagemId);
+        }
+
+        public boolean curtiuComentario(Long comentarioId) {
+            return comentarioId != null && comentarios.contains(comentarioId);
+        }
+    }
+}
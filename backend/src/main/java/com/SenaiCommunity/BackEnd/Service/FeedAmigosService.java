@@ -0,0 +1,122 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Repository.AmizadeRepository;
+import com.SenaiCommunity.BackEnd.Repository.PostagemRepository;
+import com.SenaiCommunity.BackEnd.Service.Util.AposCommit;
+import com.SenaiCommunity.BackEnd.Service.Util.LongRingBuffer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timelines do "feed de amigos" (fan-out na escrita).
+ * Cada usuário ativo tem um buffer circular com os IDs das últimas postagens dos amigos e dele mesmo.
+ * A nova postagem é empurrada para as timelines já carregadas; as ausentes são reconstruídas do
+ * MySQL na primeira leitura, o que também cobre reinícios e timelines descartadas pelo limite.
+ * Cada ID aparece uma vez por timeline, e postagens excluídas saem das timelines carregadas.
+ */
+@Service
+public class FeedAmigosService {
+
+    private static final int CAPACIDADE_TIMELINE = 200;
+
+    @Autowired
+    private AmizadeRepository amizadeRepository;
+
+    @Autowired
+    private PostagemRepository postagemRepository;
+
+    // Limitado em quantidade e por inatividade: usuários que não abrem o feed não ocupam memória
+    private final Cache<Long, LongRingBuffer> timelines = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(2))
+            .build();
+
+    /**
+     * Distribui a postagem para as timelines carregadas do autor e dos seus amigos.
+     * Dentro de uma transação, só acontece após o commit (a postagem já estará visível na reconstrução).
+     */
+    public void distribuir(Long autorId, Long postagemId) {
+        AposCommit.executar(() -> empurrar(autorId, postagemId));
+    }
+
+    /**
+     * Retira a postagem excluída das timelines carregadas do autor e dos seus amigos.
+     * Dentro de uma transação, só acontece após o commit.
+     */
+    public void retirar(Long autorId, Long postagemId) {
+        AposCommit.executar(() -> {
+            for (Long usuarioId : autores(autorId)) {
+                LongRingBuffer timeline = timelines.getIfPresent(usuarioId);
+                if (timeline != null) {
+                    timeline.remove(postagemId);
+                }
+            }
+        });
+    }
+
+    private void empurrar(Long autorId, Long postagemId) {
+        // Uma timeline reconstruída depois do commit já contém a postagem: o buffer ignora a repetição
+        for (Long usuarioId : autores(autorId)) {
+            LongRingBuffer timeline = timelines.getIfPresent(usuarioId);
+            if (timeline != null) {
+                timeline.add(postagemId);
+            }
+        }
+    }
+
+    /**
+     * IDs da página do feed de amigos, do mais recente para o mais antigo.
+     * O cursor é o ID da última postagem recebida; além do que cabe no buffer, a consulta vai ao banco.
+     */
+    public List<Long> buscarIds(Long usuarioId, Long antesDe, int tamanho) {
+        long cursor = antesDe != null ? antesDe : Long.MAX_VALUE;
+        LongRingBuffer timeline = timelines.get(usuarioId, this::reconstruir);
+
+        long[] doBuffer = timeline.recentes(cursor, tamanho);
+        List<Long> ids = new ArrayList<>(tamanho);
+        for (long id : doBuffer) ids.add(id);
+
+        // Buffer cheio = podem existir postagens mais antigas que não couberam nele
+        if (ids.size() < tamanho && timeline.size() == timeline.capacidade()) {
+            long depoisDoBuffer = Math.min(cursor, ids.isEmpty() ? timeline.maisAntigo() : ids.get(ids.size() - 1));
+            ids.addAll(postagemRepository.findIdsDeAutoresAntesDe(
+                    autores(usuarioId), depoisDoBuffer, PageRequest.of(0, tamanho - ids.size())));
+        }
+        return ids;
+    }
+
+    /**
+     * Descarta as timelines afetadas por mudança na amizade; serão reconstruídas na próxima leitura.
+     * Só após o commit: antes dele uma reconstrução concorrente guardaria de novo a lista antiga de amigos.
+     */
+    public void invalidar(Long... usuarioIds) {
+        AposCommit.executar(() -> {
+            for (Long usuarioId : usuarioIds) {
+                timelines.invalidate(usuarioId);
+            }
+        });
+    }
+
+    private LongRingBuffer reconstruir(Long usuarioId) {
+        List<Long> ids = postagemRepository.findIdsDeAutores(autores(usuarioId), PageRequest.of(0, CAPACIDADE_TIMELINE));
+        LongRingBuffer timeline = new LongRingBuffer(CAPACIDADE_TIMELINE);
+        // A consulta vem do mais recente para o mais antigo; o buffer recebe na ordem de criação
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            timeline.add(ids.get(i));
+        }
+        return timeline;
+    }
+
+    private List<Long> autores(Long usuarioId) {
+        List<Long> autores = new ArrayList<>(amizadeRepository.findIdsAmigos(usuarioId));
+        autores.add(usuarioId);
+        return autores;
+    }
+}
@@ -0,0 +1,94 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Repository.ProjetoMembroRepository;
+import com.SenaiCommunity.BackEnd.Repository.ProjetoRepository;
+import com.SenaiCommunity.BackEnd.Service.Util.AposCommit;
+import com.SenaiCommunity.BackEnd.Service.Util.LongHashSet;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Quem pode participar do chat de cada projeto (membros e o autor), em cache como conjunto de IDs.
+ * O envio de mensagem, a retomada e o cursor de leitura verificam a participação sem consultar o banco,
+ * o que mantém o custo por mensagem constante mesmo em canais com milhares de membros.
+ * Os conjuntos em cache nunca são alterados: entrar, sair, trocar o autor ou excluir o projeto descarta a entrada
+ * após o commit. O descarte só vale nesta instância; com várias réplicas (broker relay) as outras enxergam a mudança
+ * quando a entrada expira, no máximo {@link #VALIDADE} depois da carga.
+ */
+@Service
+public class MembrosProjetoService {
+
+    private static final Duration VALIDADE = Duration.ofSeconds(30);
+
+    @Autowired
+    private ProjetoMembroRepository projetoMembroRepository;
+
+    @Autowired
+    private ProjetoRepository projetoRepository;
+
+    private final Cache<Long, LongHashSet> participantes = Caffeine.newBuilder()
+            .maximumSize(2_000)
+            .expireAfterWrite(VALIDADE)
+            .build();
+
+    /**
+     * true se o usuário é membro ou autor do projeto. Lança NoSuchElementException se o projeto não existe.
+     */
+    public boolean participa(Long projetoId, Long usuarioId) {
+        LongHashSet ids = participantes.get(projetoId, this::carregar);
+        if (ids == null) {
+            throw new NoSuchElementException("Projeto não encontrado");
+        }
+        return ids.contains(usuarioId);
+    }
+
+    /**
+     * IDs dos participantes do projeto. Lança NoSuchElementException se o projeto não existe.
+     */
+    public long[] idsParticipantes(Long projetoId) {
+        LongHashSet ids = participantes.get(projetoId, this::carregar);
+        if (ids == null) {
+            throw new NoSuchElementException("Projeto não encontrado");
+        }
+        return ids.toArray();
+    }
+
+    /**
+     * Projetos de que o usuário participa (como membro ou autor), lidos do banco.
+     */
+    public Set<Long> projetosDe(Long usuarioId) {
+        Set<Long> projetos = new HashSet<>(projetoMembroRepository.findProjetoIdsByUsuarioId(usuarioId));
+        projetos.addAll(projetoRepository.findIdsByAutorId(usuarioId));
+        return projetos;
+    }
+
+    public void verificarParticipante(Long projetoId, Long usuarioId) {
+        if (!participa(projetoId, usuarioId)) {
+            throw new SecurityException("Acesso negado: você não é membro deste projeto.");
+        }
+    }
+
+    public void invalidar(Long projetoId) {
+        AposCommit.executar(() -> participantes.invalidate(projetoId));
+    }
+
+    // null (não fica em cache) se o projeto não existe
+    private LongHashSet carregar(Long projetoId) {
+        if (!projetoRepository.existsById(projetoId)) {
+            return null;
+        }
+        LongHashSet ids = LongHashSet.of(projetoMembroRepository.findUsuarioIdsByProjetoId(projetoId));
+        Long autorId = projetoRepository.findAutorIdById(projetoId);
+        if (autorId != null) {
+            ids.add(autorId);
+        }
+        return ids;
+    }
+}
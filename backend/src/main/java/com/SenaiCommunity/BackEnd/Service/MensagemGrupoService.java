@@ -7,27 +7,48 @@ import com.SenaiCommunity.BackEnd.Entity.MensagemGrupo;
 import com.SenaiCommunity.BackEnd.Entity.Projeto;
 import com.SenaiCommunity.BackEnd.Entity.Usuario;
 import com.SenaiCommunity.BackEnd.Exception.ConteudoImproprioException;
+import com.SenaiCommunity.BackEnd.Repository.ArquivoMidiaRepository;
 import com.SenaiCommunity.BackEnd.Repository.MensagemGrupoRepository;
 import com.SenaiCommunity.BackEnd.Repository.ProjetoMembroRepository;
 import com.SenaiCommunity.BackEnd.Repository.ProjetoRepository;
 import com.SenaiCommunity.BackEnd.Repository.UsuarioRepository;
+import com.SenaiCommunity.BackEnd.Service.ChatLogService.AnexoRegistrado;
+import com.SenaiCommunity.BackEnd.Service.ChatLogService.MensagemRegistrada;
+import com.SenaiCommunity.BackEnd.Service.ChatLogService.TipoMensagem;
+import com.SenaiCommunity.BackEnd.Service.Util.AposCommit;
+import com.SenaiCommunity.BackEnd.Service.Util.JanelaDeduplicacao;
+import jakarta.annotation.PostConstruct;
 import org.springframework.data.domain.Page;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class MensagemGrupoService {
 
+    private static final int TAMANHO_MAXIMO_RETOMADA = 100;
+    private static final int TAMANHO_MAXIMO_ID_CLIENTE = 64;
+
+    // Envios recentes por "autorId:idMensagemCliente"; fora da janela vale a consulta pelo índice único
+    private final JanelaDeduplicacao<MensagemGrupoSaidaDTO> enviosRecentes =
+            new JanelaDeduplicacao<>(Duration.ofMinutes(10), 50_000);
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
@@ -41,35 +62,69 @@ public class MensagemGrupoService {
     private ProjetoMembroRepository projetoMembroRepository;
 
     @Autowired
-    private NotificacaoService notificacaoService;
+    private MembrosProjetoService membrosProjetoService;
+
+    @Autowired
+    private ResumoMensagensGrupoService resumoMensagensGrupo;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
     private ArquivoMidiaService arquivoMidiaService;
 
+    @Autowired
+    private ArquivoMidiaRepository arquivoMidiaRepository;
+
     @Autowired
     private FiltroProfanidadeService filtroProfanidade;
 
+    @Autowired
+    private ChatLogService chatLogService;
+
+    @Autowired
+    private SequenciaChatService sequenciaChatService;
+
+    @Autowired
+    private MensagensRecentesService mensagensRecentes;
+
+    @Autowired
+    private BuscaChatService buscaChatService;
+
+    // Para os métodos que esperam o log de chat antes de abrir a transação
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void registrarEfeitosGravacao() {
+        chatLogService.aoGravar(TipoMensagem.GRUPO, this::aplicarEfeitosGravacao);
+    }
+
     // --- CONVERSÃO ENTIDADE -> DTO ---
     public MensagemGrupoSaidaDTO toDTO(MensagemGrupo mensagem) {
         return MensagemGrupoSaidaDTO.builder()
                 .id(mensagem.getId())
+                .sequencia(mensagem.getSequencia())
                 .conteudo(mensagem.getConteudo())
                 .dataEnvio(mensagem.getDataEnvio())
                 .grupoId(mensagem.getProjeto().getId())
                 .autorId(mensagem.getAutor().getId())
                 .nomeAutor(mensagem.getAutor().getNome())
                 .urlFotoAutor(mensagem.getAutor().getFotoPerfil())
+                .idMensagemCliente(mensagem.getIdMensagemCliente())
                 .anexos(mensagem.getAnexos() != null ?
-                        mensagem.getAnexos().stream().map(m -> {
-                            MensagemGrupoSaidaDTO.AnexoDTO anexo = new MensagemGrupoSaidaDTO.AnexoDTO();
-                            anexo.setUrl(m.getUrl());
-                            anexo.setType(m.getTipo() != null ? m.getTipo() : arquivoMidiaService.detectarTipoPelaUrl(m.getUrl()));
-                            return anexo;
-                        }).collect(Collectors.toList())
+                        mensagem.getAnexos().stream().map(m -> toAnexoDTO(m.getUrl(), m.getTipo())).collect(Collectors.toList())
                         : null)
                 .build();
     }
 
+    private MensagemGrupoSaidaDTO.AnexoDTO toAnexoDTO(String url, String tipo) {
+        MensagemGrupoSaidaDTO.AnexoDTO anexo = new MensagemGrupoSaidaDTO.AnexoDTO();
+        anexo.setUrl(url);
+        anexo.setType(tipo != null ? tipo : arquivoMidiaService.detectarTipoPelaUrl(url));
+        return anexo;
+    }
+
     // --- CONVERSÃO DTO -> ENTIDADE (Básica) ---
     private MensagemGrupo toEntity(MensagemGrupoEntradaDTO dto, Usuario autor, Projeto projeto) {
         return MensagemGrupo.builder()
@@ -81,8 +136,10 @@ public class MensagemGrupoService {
     }
 
     // --- SALVAR MENSAGEM (Criação) ---
-    @Transactional
-    public MensagemGrupoSaidaDTO salvarMensagemGrupo(MensagemGrupoEntradaDTO dto, Long projetoId, String autorUsername) {
+    // Com idMensagemCliente, uma retentativa do mesmo envio devolve a mensagem original marcada como repetida
+    // (sem gravar nem publicar de novo no tópico do grupo)
+    @Transactional(readOnly = true)
+    public JanelaDeduplicacao.Resultado<MensagemGrupoSaidaDTO> salvarMensagemGrupo(MensagemGrupoEntradaDTO dto, Long projetoId, String autorUsername) {
 
         // 1. Validação de Profanidade
         if (filtroProfanidade.contemProfanidade(dto.getConteudo())) {
@@ -93,67 +150,106 @@ public class MensagemGrupoService {
         Usuario autor = usuarioRepository.findByEmail(autorUsername)
                 .orElseThrow(() -> new NoSuchElementException("Usuário não encontrado"));
 
-        Projeto projeto = projetoRepository.findById(projetoId)
-                .orElseThrow(() -> new NoSuchElementException("Projeto não encontrado"));
+        // 3. Validação de Segurança (é membro ou dono?) pelo conjunto de IDs em cache: custo constante
+        // mesmo em canais grandes, e o projeto só entra como referência (sem carregar a entidade)
+        membrosProjetoService.verificarParticipante(projetoId, autor.getId());
 
-        // 3. Validação de Segurança (É membro?)
-        boolean isMember = projetoMembroRepository.existsByProjetoIdAndUsuarioId(projetoId, autor.getId());
-        // Se o autor do projeto enviar msg, ele pode não estar na tabela de membros, mas é dono
-        boolean isOwner = projeto.getAutor().getId().equals(autor.getId());
+        // 4. Deduplicação de retentativas pela chave do cliente
+        String idCliente = JanelaDeduplicacao.validarIdCliente(dto.getIdMensagemCliente(), TAMANHO_MAXIMO_ID_CLIENTE);
+        return enviosRecentes.executar(idCliente != null ? autor.getId() + ":" + idCliente : null,
+                () -> mensagemGrupoRepository.findByAutorIdAndIdMensagemCliente(autor.getId(), idCliente).map(this::toDTO),
+                () -> gravarNovaMensagem(dto, projetoId, autor, idCliente));
+    }
 
-        if (!isMember && !isOwner) {
-            throw new SecurityException("Acesso negado: você não é membro deste projeto.");
-        }
+    private MensagemGrupoSaidaDTO gravarNovaMensagem(MensagemGrupoEntradaDTO dto, Long projetoId, Usuario autor, String idCliente) {
+        Projeto projeto = projetoRepository.getReferenceById(projetoId);
 
-        // 4. Salvar Mensagem (Inicialmente sem anexos para gerar ID)
+        // 5. Write-behind: a mensagem (e os anexos) recebem IDs definitivos e vão para o log local;
+        // a inserção no banco e as notificações dos membros acontecem na gravação em lote
         MensagemGrupo novaMensagem = toEntity(dto, autor, projeto);
-        MensagemGrupo mensagemSalva = mensagemGrupoRepository.save(novaMensagem);
-
-        // 5. Processar Anexos (Se houver)
-        if (dto.getAnexos() != null && !dto.getAnexos().isEmpty()) {
-            List<ArquivoMidia> midias = new ArrayList<>();
+        novaMensagem.setId(chatLogService.gerarId(MensagemGrupo.class));
+        novaMensagem.setSequencia(sequenciaChatService.proximaGrupo(projetoId));
+        novaMensagem.setIdMensagemCliente(idCliente);
 
+        List<ArquivoMidia> midias = new ArrayList<>();
+        List<AnexoRegistrado> anexosRegistrados = new ArrayList<>();
+        if (dto.getAnexos() != null) {
             for (MensagemGrupoEntradaDTO.AnexoDTO anexoDto : dto.getAnexos()) {
                 // Detecta o tipo (imagem, video, raw) baseado na extensão da URL
                 String tipo = arquivoMidiaService.detectarTipoPelaUrl(anexoDto.getUrl());
+                long anexoId = chatLogService.gerarId(ArquivoMidia.class);
 
-                ArquivoMidia midia = ArquivoMidia.builder()
-                        .url(anexoDto.getUrl())
-                        .tipo(tipo)
-                        .mensagemGrupo(mensagemSalva) // Vínculo importante: Mídia -> Mensagem
-                        .build();
-
-                midias.add(midia);
+                midias.add(ArquivoMidia.builder().id(anexoId).url(anexoDto.getUrl()).tipo(tipo).build());
+                anexosRegistrados.add(new AnexoRegistrado(anexoId, anexoDto.getUrl(), tipo));
             }
+        }
+        novaMensagem.setAnexos(midias);
+
+        chatLogService.anexar(new MensagemRegistrada(TipoMensagem.GRUPO, novaMensagem.getId(), autor.getId(), projetoId,
+                novaMensagem.getSequencia(), novaMensagem.getConteudo(), novaMensagem.getDataEnvio(), anexosRegistrados, idCliente));
 
-            // Atualiza a lista na entidade pai
-            mensagemSalva.setAnexos(midias);
+        MensagemGrupoSaidaDTO saida = toDTO(novaMensagem);
+        mensagensRecentes.registrarGrupo(projetoId, saida);
+        return saida;
+    }
 
-            // Salva novamente para persistir os anexos via CascadeType.ALL
-            mensagemSalva = mensagemGrupoRepository.save(mensagemSalva);
+    // Chamado pelo ChatLogService, na transação que inseriu o lote.
+    // Em vez de uma notificação por membro a cada mensagem, cada grupo recebe um único aviso de atividade
+    // com a última sequência gravada; o badge de não lidas sai do cursor de leitura de cada membro
+    // e o aviso na lista de notificações vem do resumo periódico.
+    private void aplicarEfeitosGravacao(List<MensagemRegistrada> gravadas) {
+        Map<Long, Long> ultimaSequenciaPorProjeto = new HashMap<>();
+        for (MensagemRegistrada gravada : gravadas) {
+            ultimaSequenciaPorProjeto.merge(gravada.alvoId(), gravada.sequencia(), Math::max);
         }
+        AposCommit.executar(() -> ultimaSequenciaPorProjeto.forEach((projetoId, sequencia) -> {
+            messagingTemplate.convertAndSend("/topic/grupo/" + projetoId + "/atividade",
+                    Map.of("projetoId", projetoId, "sequencia", sequencia));
+            resumoMensagensGrupo.registrarAtividade(projetoId);
+        }));
+        AposCommit.executar(() -> buscaChatService.indexar(gravadas));
+    }
 
-        // 6. Notificar Membros
-        projetoMembroRepository.findByProjetoId(projetoId).stream()
-                .filter(membro -> !membro.getUsuario().getId().equals(autor.getId()))
-                .forEach(membro -> notificacaoService.criarNotificacao(
-                        membro.getUsuario(),
-                        "Nova mensagem no projeto '" + projeto.getTitulo() + "'",
-                        "MENSAGEM_PROJETO",
-                        projeto.getId() // ID Referencia = ID do Projeto
-                ));
+    /**
+     * Mensagens de grupo não lidas pelo usuário, por projeto (só projetos com pelo menos uma).
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> contarNaoLidasPorProjeto(Long usuarioId) {
+        Map<Long, Long> naoLidas = new HashMap<>();
+        for (Object[] linha : projetoMembroRepository.contarNaoLidasPorProjeto(usuarioId)) {
+            naoLidas.put(((Number) linha[0]).longValue(), ((Number) linha[1]).longValue());
+        }
+        return naoLidas;
+    }
 
-        return toDTO(mensagemSalva);
+    /**
+     * Avança o cursor de leitura do membro até a sequência informada (ou até a última mensagem do grupo).
+     * O cursor nunca volta: marcar uma mensagem antiga como lida não altera nada. A sequência vem do cliente,
+     * por isso é limitada à última já atribuída no grupo (um valor além dela zeraria o badge para sempre).
+     */
+    public void marcarComoLida(Long projetoId, Long usuarioId, Long sequencia) {
+        membrosProjetoService.verificarParticipante(projetoId, usuarioId);
+        if (sequencia != null && sequencia < 0) {
+            throw new IllegalArgumentException("Sequência inválida.");
+        }
+        // Última atribuída, inclusive a mensagens ainda só no log: não precisa esperar a gravação
+        long ultima = sequenciaChatService.atualGrupo(projetoId);
+        long ate = sequencia != null ? Math.min(sequencia, ultima) : ultima;
+        if (ate == 0) return;
+        transactionTemplate.executeWithoutResult(status -> projetoMembroRepository.avancarLeitura(projetoId, usuarioId, ate));
     }
 
     // --- EDITAR MENSAGEM ---
-    @Transactional
     public MensagemGrupoSaidaDTO editarMensagemGrupo(Long id, String novoConteudo, String autorUsername) {
-
         if (filtroProfanidade.contemProfanidade(novoConteudo)) {
             throw new ConteudoImproprioException("Sua mensagem contém texto não permitido.");
         }
 
+        chatLogService.aguardarGravacao(TipoMensagem.GRUPO, id);
+        return transactionTemplate.execute(status -> editar(id, novoConteudo, autorUsername));
+    }
+
+    private MensagemGrupoSaidaDTO editar(Long id, String novoConteudo, String autorUsername) {
         MensagemGrupo mensagem = mensagemGrupoRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Mensagem não encontrada"));
 
@@ -166,12 +262,23 @@ public class MensagemGrupoService {
         mensagem.setConteudo(novoConteudo);
 
         MensagemGrupo mensagemAtualizada = mensagemGrupoRepository.save(mensagem);
-        return toDTO(mensagemAtualizada);
+        MensagemGrupoSaidaDTO saida = toDTO(mensagemAtualizada);
+        AposCommit.executar(() -> mensagensRecentes.atualizarGrupo(saida.getGrupoId(), saida));
+        MensagemRegistrada editada = new MensagemRegistrada(TipoMensagem.GRUPO, mensagemAtualizada.getId(),
+                mensagemAtualizada.getAutor().getId(), mensagemAtualizada.getProjeto().getId(),
+                mensagemAtualizada.getSequencia(), novoConteudo, mensagemAtualizada.getDataEnvio(), List.of(),
+                mensagemAtualizada.getIdMensagemCliente());
+        AposCommit.executar(() -> buscaChatService.indexar(List.of(editada)));
+        return saida;
     }
 
     // --- EXCLUIR MENSAGEM ---
-    @Transactional
     public MensagemGrupo excluirMensagemGrupo(Long id, String autorUsername) {
+        chatLogService.aguardarGravacao(TipoMensagem.GRUPO, id);
+        return transactionTemplate.execute(status -> excluir(id, autorUsername));
+    }
+
+    private MensagemGrupo excluir(Long id, String autorUsername) {
         MensagemGrupo mensagem = mensagemGrupoRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Mensagem não encontrada"));
 
@@ -200,14 +307,72 @@ public class MensagemGrupoService {
         }
 
         mensagemGrupoRepository.delete(mensagem);
+        Long projetoId = mensagem.getProjeto().getId();
+        AposCommit.executar(() -> mensagensRecentes.removerGrupo(projetoId, mensagem.getSequencia()));
+        AposCommit.executar(() -> buscaChatService.remover(TipoMensagem.GRUPO, mensagem.getId()));
         return mensagem;
     }
 
     // --- BUSCAR MENSAGENS ---
+    // Número fixo de consultas por página: contagem, mensagens com os dados do autor (projeção) e anexos (IN)
+    @Transactional(readOnly = true)
     public Page<MensagemGrupoSaidaDTO> buscarMensagensPorProjetoPaginado(Long projetoId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size); // PageRequest já existe no Spring
-        return mensagemGrupoRepository.findByProjetoIdOrderByDataEnvioDesc(projetoId, pageable)
-                .map(this::toDTO);
+        Page<Object[]> linhas = mensagemGrupoRepository.findPaginaHistorico(projetoId, pageable);
+
+        List<Long> ids = linhas.getContent().stream().map(linha -> (Long) linha[0]).toList();
+        Map<Long, List<MensagemGrupoSaidaDTO.AnexoDTO>> anexos = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Object[] anexo : arquivoMidiaRepository.findAnexosDeMensagensGrupo(ids)) {
+                anexos.computeIfAbsent((Long) anexo[0], id -> new ArrayList<>())
+                        .add(toAnexoDTO((String) anexo[1], (String) anexo[2]));
+            }
+        }
+
+        return linhas.map(linha -> MensagemGrupoSaidaDTO.builder()
+                .id((Long) linha[0])
+                .sequencia((Long) linha[1])
+                .conteudo((String) linha[2])
+                .dataEnvio((LocalDateTime) linha[3])
+                .grupoId(projetoId)
+                .autorId((Long) linha[4])
+                .nomeAutor((String) linha[5])
+                .urlFotoAutor((String) linha[6])
+                .anexos(anexos.getOrDefault((Long) linha[0], new ArrayList<>()))
+                .build());
+    }
+
+    /**
+     * Mensagens encontradas pela busca do histórico, na ordem dos IDs (o filtro de projetos já foi feito no índice).
+     * Excluídas no meio do caminho são ignoradas.
+     */
+    @Transactional(readOnly = true)
+    public List<MensagemGrupoSaidaDTO> buscarPorIds(List<Long> ids) {
+        Map<Long, MensagemGrupo> mensagens = mensagemGrupoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(MensagemGrupo::getId, Function.identity()));
+        return ids.stream()
+                .map(mensagens::get)
+                .filter(Objects::nonNull)
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retomada após reconexão: mensagens do grupo posteriores à última sequência recebida pelo cliente,
+     * em ordem. Sai da janela em memória quando possível; senão, do banco.
+     */
+    public List<MensagemGrupoSaidaDTO> buscarMensagensDesde(Long projetoId, Long usuarioId, long sequencia, int tamanho) {
+        membrosProjetoService.verificarParticipante(projetoId, usuarioId);
+
+        int limite = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_RETOMADA));
+        return mensagensRecentes.gruposDepoisDe(projetoId, sequencia, limite).orElseGet(() -> {
+            chatLogService.aguardarGravacao(ChatLogService.chaveGrupo(projetoId));
+            TransactionTemplate leitura = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            leitura.setReadOnly(true);
+            return leitura.execute(status -> mensagemGrupoRepository.findDesdeSequencia(projetoId, sequencia, PageRequest.of(0, limite)).stream()
+                    .map(this::toDTO)
+                    .collect(Collectors.toList()));
+        });
     }
 
     public java.util.Optional<MensagemGrupo> findById(Long id) {
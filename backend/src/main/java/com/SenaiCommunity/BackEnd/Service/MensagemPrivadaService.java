@@ -3,26 +3,46 @@ package com.SenaiCommunity.BackEnd.Service;
 import com.SenaiCommunity.BackEnd.DTO.ConversaResumoDTO;
 import com.SenaiCommunity.BackEnd.DTO.MensagemPrivadaEntradaDTO;
 import com.SenaiCommunity.BackEnd.DTO.MensagemPrivadaSaidaDTO;
+import com.SenaiCommunity.BackEnd.Entity.Conversa;
 import com.SenaiCommunity.BackEnd.Entity.MensagemPrivada;
 import com.SenaiCommunity.BackEnd.Entity.Usuario;
 import com.SenaiCommunity.BackEnd.Exception.ConteudoImproprioException;
 import com.SenaiCommunity.BackEnd.Repository.MensagemPrivadaRepository;
 import com.SenaiCommunity.BackEnd.Repository.UsuarioRepository;
+import com.SenaiCommunity.BackEnd.Service.ChatLogService.MensagemRegistrada;
+import com.SenaiCommunity.BackEnd.Service.ChatLogService.TipoMensagem;
+import com.SenaiCommunity.BackEnd.Service.Util.AposCommit;
+import com.SenaiCommunity.BackEnd.Service.Util.JanelaDeduplicacao;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class MensagemPrivadaService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+    private static final int TAMANHO_MAXIMO_ID_CLIENTE = 64;
+
+    // Envios recentes por "remetenteId:idMensagemCliente"; fora da janela vale a consulta pelo índice único
+    private final JanelaDeduplicacao<MensagemPrivadaSaidaDTO> enviosRecentes =
+            new JanelaDeduplicacao<>(Duration.ofMinutes(10), 50_000);
+
     @Autowired
     private MensagemPrivadaRepository mensagemPrivadaRepository;
 
@@ -38,10 +58,41 @@ public class MensagemPrivadaService {
     @Autowired
     private FiltroProfanidadeService filtroProfanidade;
 
+    @Autowired
+    private ConversaService conversaService;
+
+    @Autowired
+    private ContadorNaoLidasService contadorNaoLidas;
+
+    @Autowired
+    private BloqueioService bloqueioService;
+
+    @Autowired
+    private ChatLogService chatLogService;
+
+    @Autowired
+    private SequenciaChatService sequenciaChatService;
+
+    @Autowired
+    private MensagensRecentesService mensagensRecentes;
+
+    @Autowired
+    private BuscaChatService buscaChatService;
+
+    // Para os métodos que esperam o log de chat antes de abrir a transação
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void registrarEfeitosGravacao() {
+        chatLogService.aoGravar(TipoMensagem.PRIVADA, this::aplicarEfeitosGravacao);
+    }
+
     private void notificarAtualizacaoContagemNaoLida(Usuario usuario) {
         if (usuario == null || usuario.getEmail() == null) return;
 
-        long contagem = mensagemPrivadaRepository.countByDestinatarioAndLidaIsFalse(usuario);
+        // Contador em memória: nenhuma consulta no caminho de envio
+        long contagem = contadorNaoLidas.obter(usuario.getId());
 
         String destination = "/user/" + usuario.getEmail() + "/queue/contagem";
 
@@ -52,6 +103,7 @@ public class MensagemPrivadaService {
     private MensagemPrivadaSaidaDTO toDTO(MensagemPrivada mensagem) {
         return MensagemPrivadaSaidaDTO.builder()
                 .id(mensagem.getId())
+                .sequencia(mensagem.getSequencia())
                 .conteudo(mensagem.getConteudo())
                 .dataEnvio(mensagem.getDataEnvio())
                 .remetenteId(mensagem.getRemetente().getId())
@@ -61,6 +113,7 @@ public class MensagemPrivadaService {
                 .nomeDestinatario(mensagem.getDestinatario().getNome())
                 .destinatarioEmail(mensagem.getDestinatario().getEmail())
                 .lida(mensagem.isLida())
+                .idMensagemCliente(mensagem.getIdMensagemCliente())
                 .build();
     }
 
@@ -73,8 +126,12 @@ public class MensagemPrivadaService {
                 .build();
     }
 
-    @Transactional
-    public MensagemPrivadaSaidaDTO salvarMensagemPrivada(MensagemPrivadaEntradaDTO dto, String remetenteUsername) {
+    /**
+     * Envia a mensagem. Com {@code idMensagemCliente}, uma retentativa do mesmo envio não grava nada:
+     * devolve a mensagem original marcada como repetida (quem chama não deve entregá-la de novo ao destinatário).
+     */
+    @Transactional(readOnly = true)
+    public JanelaDeduplicacao.Resultado<MensagemPrivadaSaidaDTO> salvarMensagemPrivada(MensagemPrivadaEntradaDTO dto, String remetenteUsername) {
 
         if (filtroProfanidade.contemProfanidade(dto.getConteudo())) {
             throw new ConteudoImproprioException("Sua mensagem contém texto não permitido.");
@@ -82,30 +139,78 @@ public class MensagemPrivadaService {
 
         Usuario remetente = usuarioRepository.findByEmail(remetenteUsername)
                 .orElseThrow(() -> new NoSuchElementException("Remetente não encontrado"));
+
+        String idCliente = JanelaDeduplicacao.validarIdCliente(dto.getIdMensagemCliente(), TAMANHO_MAXIMO_ID_CLIENTE);
+        return enviosRecentes.executar(idCliente != null ? remetente.getId() + ":" + idCliente : null,
+                () -> mensagemPrivadaRepository.findByRemetenteIdAndIdMensagemCliente(remetente.getId(), idCliente).map(this::toDTO),
+                () -> gravarNovaMensagem(dto, remetente, idCliente));
+    }
+
+    private MensagemPrivadaSaidaDTO gravarNovaMensagem(MensagemPrivadaEntradaDTO dto, Usuario remetente, String idCliente) {
         Usuario destinatario = usuarioRepository.findById(dto.getDestinatarioId())
                 .orElseThrow(() -> new NoSuchElementException("Destinatário não encontrado"));
 
 
-        if (remetente.getBloqueados().contains(destinatario)) {
+        if (bloqueioService.bloqueou(remetente.getId(), destinatario.getId())) {
             throw new SecurityException("Você bloqueou este usuário e não pode enviar mensagens.");
         }
-        if (destinatario.getBloqueados().contains(remetente)) {
+        if (bloqueioService.foiBloqueadoPor(remetente.getId(), destinatario.getId())) {
             throw new SecurityException("Você foi bloqueado por este usuário.");
         }
 
+        // Write-behind: a mensagem vai para o log local com ID definitivo e é gravada no banco em lote
+        // (o resumo da conversa, a notificação e o contador de não lidas são aplicados nessa gravação)
         MensagemPrivada novaMensagem = toEntity(dto, remetente, destinatario);
-        MensagemPrivada mensagemSalva = mensagemPrivadaRepository.save(novaMensagem);
-
-        notificacaoService.criarNotificacao(
-                destinatario,
-                "Você recebeu uma nova mensagem de " + remetente.getNome(),
-                "MENSAGEM_PRIVADA",
-                remetente.getId()
-        );
-
-        notificarAtualizacaoContagemNaoLida(destinatario);
+        novaMensagem.setId(chatLogService.gerarId(MensagemPrivada.class));
+        novaMensagem.setSequencia(sequenciaChatService.proximaPrivada(remetente.getId(), destinatario.getId()));
+        novaMensagem.setIdMensagemCliente(idCliente);
+        chatLogService.anexar(new MensagemRegistrada(TipoMensagem.PRIVADA, novaMensagem.getId(), remetente.getId(),
+                destinatario.getId(), novaMensagem.getSequencia(), novaMensagem.getConteudo(), novaMensagem.getDataEnvio(), List.of(),
+                idCliente));
+
+        MensagemPrivadaSaidaDTO saida = toDTO(novaMensagem);
+        mensagensRecentes.registrarPrivada(MensagemPrivada.chaveConversa(remetente.getId(), destinatario.getId()), saida);
+        return saida;
+    }
 
-        return toDTO(mensagemSalva);
+    // Chamado pelo ChatLogService, na transação que inseriu o lote
+    private void aplicarEfeitosGravacao(List<MensagemRegistrada> gravadas) {
+        Set<Long> usuarioIds = new HashSet<>();
+        gravadas.forEach(m -> {
+            usuarioIds.add(m.autorId());
+            usuarioIds.add(m.alvoId());
+        });
+        Map<Long, Usuario> usuarios = usuarioRepository.findAllById(usuarioIds).stream()
+                .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+
+        for (MensagemRegistrada gravada : gravadas) {
+            Usuario remetente = usuarios.get(gravada.autorId());
+            Usuario destinatario = usuarios.get(gravada.alvoId());
+            MensagemPrivada mensagem = MensagemPrivada.builder()
+                    .id(gravada.id())
+                    .sequencia(gravada.sequencia())
+                    .remetente(remetente)
+                    .destinatario(destinatario)
+                    .conteudo(gravada.conteudo())
+                    .dataEnvio(gravada.dataEnvio())
+                    .build();
+            conversaService.registrarMensagem(mensagem);
+
+            notificacaoService.criarNotificacao(
+                    destinatario,
+                    "Você recebeu uma nova mensagem de " + remetente.getNome(),
+                    "MENSAGEM_PRIVADA",
+                    remetente.getId()
+            );
+
+            if (!remetente.getId().equals(destinatario.getId())) {
+                AposCommit.executar(() -> {
+                    contadorNaoLidas.somar(destinatario.getId(), 1);
+                    notificarAtualizacaoContagemNaoLida(destinatario);
+                });
+            }
+        }
+        AposCommit.executar(() -> buscaChatService.indexar(gravadas));
     }
 
 
@@ -119,35 +224,27 @@ public class MensagemPrivadaService {
         Usuario usuarioLogado = usuarioRepository.findByEmail(usuarioLogadoUsername)
                 .orElseThrow(() -> new NoSuchElementException("Usuário logado não encontrado"));
 
-        List<MensagemPrivada> ultimasMensagens = mensagemPrivadaRepository.findUltimasMensagensPorConversa(usuarioLogado.getId());
+        // Uma linha por conversa na tabela de resumo, já ordenada pela última mensagem
+        List<Conversa> conversas = conversaService.listarDoUsuario(usuarioLogado.getId());
 
-        return ultimasMensagens.stream()
+        return conversas.stream()
                 // --- FILTRAGEM DE BLOQUEIO (NOVO) ---
-                .filter(mensagem -> {
-                    Usuario outroUsuario;
-                    if (mensagem.getRemetente().getId().equals(usuarioLogado.getId())) {
-                        outroUsuario = mensagem.getDestinatario();
-                    } else {
-                        outroUsuario = mensagem.getRemetente();
-                    }
+                .filter(conversa -> {
+                    Usuario outroUsuario = outroUsuario(conversa, usuarioLogado.getId());
 
                     // Verifica se EU bloqueei ele
-                    boolean euBloqueei = usuarioLogado.getBloqueados().contains(outroUsuario);
+                    boolean euBloqueei = bloqueioService.bloqueou(usuarioLogado.getId(), outroUsuario.getId());
 
                     // Verifica se ELE me bloqueou (Opcional: se quiser esconder conversas de quem te bloqueou)
-                    boolean eleMeBloqueou = outroUsuario.getBloqueados().contains(usuarioLogado);
+                    boolean eleMeBloqueou = bloqueioService.foiBloqueadoPor(usuarioLogado.getId(), outroUsuario.getId());
 
                     // Só mostra se NINGUÉM bloqueou NINGUÉM
                     return !euBloqueei && !eleMeBloqueou;
                 })
                 // --- FIM DA FILTRAGEM ---
-                .map(mensagem -> {
-                    Usuario outroUsuario;
-                    if (mensagem.getRemetente().getId().equals(usuarioLogado.getId())) {
-                        outroUsuario = mensagem.getDestinatario();
-                    } else {
-                        outroUsuario = mensagem.getRemetente();
-                    }
+                .map(conversa -> {
+                    Usuario outroUsuario = outroUsuario(conversa, usuarioLogado.getId());
+                    boolean souMenor = conversa.getUsuarioMenor().getId().equals(usuarioLogado.getId());
 
                     String urlFoto = "/images/default-avatar.jpg";
                     String fotoPerfilDB = outroUsuario.getFotoPerfil();
@@ -165,31 +262,48 @@ public class MensagemPrivadaService {
                             .nomeOutroUsuario(outroUsuario.getNome())
                             .emailOutroUsuario(outroUsuario.getEmail())
                             .fotoPerfilOutroUsuario(urlFoto)
-                            .ultimaMensagemId(mensagem.getId())
-                            .conteudoUltimaMensagem(mensagem.getConteudo())
-                            .dataEnvioUltimaMensagem(mensagem.getDataEnvio())
-                            .remetenteUltimaMensagemId(mensagem.getRemetente().getId())
+                            .ultimaMensagemId(conversa.getUltimaMensagemId())
+                            .conteudoUltimaMensagem(conversa.getPreviaUltimaMensagem())
+                            .dataEnvioUltimaMensagem(conversa.getDataUltimaMensagem())
+                            .remetenteUltimaMensagemId(conversa.getRemetenteUltimaMensagemId())
+                            .naoLidas(souMenor ? conversa.getNaoLidasMenor() : conversa.getNaoLidasMaior())
                             .build();
                 })
                 .collect(Collectors.toList());
     }
 
-    public long contarMensagensNaoLidas(String userEmail) {
-        Usuario usuario = usuarioRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new NoSuchElementException("Usuário não encontrado: " + userEmail));
-        return mensagemPrivadaRepository.countByDestinatarioAndLidaIsFalse(usuario);
+    private static Usuario outroUsuario(Conversa conversa, Long usuarioLogadoId) {
+        return conversa.getUsuarioMenor().getId().equals(usuarioLogadoId)
+                ? conversa.getUsuarioMaior()
+                : conversa.getUsuarioMenor();
+    }
+
+    public long contarMensagensNaoLidas(Long usuarioId) {
+        return contadorNaoLidas.obter(usuarioId);
     }
 
-    @Transactional
     public void marcarConversaComoLida(String emailUsuarioLogado, Long idRemetente) {
         Usuario usuarioLogado = usuarioRepository.findByEmail(emailUsuarioLogado)
                 .orElseThrow(() -> new NoSuchElementException("Usuário logado não encontrado: " + emailUsuarioLogado));
+
+        // Mensagens desta conversa ainda no log ficariam não lidas ao chegar no banco
+        chatLogService.aguardarGravacao(ChatLogService.chavePrivada(usuarioLogado.getId(), idRemetente));
+        transactionTemplate.executeWithoutResult(status -> aplicarLeitura(usuarioLogado, idRemetente));
+    }
+
+    private void aplicarLeitura(Usuario usuarioLogado, Long idRemetente) {
         Usuario remetente = usuarioRepository.findById(idRemetente)
                 .orElseThrow(() -> new NoSuchElementException("Remetente não encontrado com ID: " + idRemetente));
 
-        mensagemPrivadaRepository.marcarComoLidas(usuarioLogado, remetente);
+        int marcadas = mensagemPrivadaRepository.marcarComoLidas(usuarioLogado, remetente);
+        conversaService.marcarComoLida(usuarioLogado.getId(), remetente.getId());
+        String conversaKey = MensagemPrivada.chaveConversa(usuarioLogado.getId(), remetente.getId());
+        AposCommit.executar(() -> mensagensRecentes.marcarPrivadasLidas(conversaKey, usuarioLogado.getId()));
 
-        notificarAtualizacaoContagemNaoLida(usuarioLogado);
+        AposCommit.executar(() -> {
+            contadorNaoLidas.somar(usuarioLogado.getId(), -marcadas);
+            notificarAtualizacaoContagemNaoLida(usuarioLogado);
+        });
     }
 
     public MensagemPrivadaSaidaDTO editarMensagemPrivada(Long id, String novoConteudo, String autorUsername) {
@@ -197,6 +311,11 @@ public class MensagemPrivadaService {
             throw new ConteudoImproprioException("Sua edição contém texto não permitido.");
         }
 
+        chatLogService.aguardarGravacao(TipoMensagem.PRIVADA, id);
+        return transactionTemplate.execute(status -> editar(id, novoConteudo, autorUsername));
+    }
+
+    private MensagemPrivadaSaidaDTO editar(Long id, String novoConteudo, String autorUsername) {
         MensagemPrivada mensagem = mensagemPrivadaRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Mensagem não encontrada"));
 
@@ -206,10 +325,23 @@ public class MensagemPrivadaService {
 
         mensagem.setConteudo(novoConteudo);
         MensagemPrivada mensagemSalva = mensagemPrivadaRepository.save(mensagem);
-        return toDTO(mensagemSalva);
+        conversaService.registrarEdicao(mensagemSalva);
+
+        MensagemPrivadaSaidaDTO saida = toDTO(mensagemSalva);
+        AposCommit.executar(() -> mensagensRecentes.atualizarPrivada(mensagemSalva.getConversaKey(), saida));
+        MensagemRegistrada editada = new MensagemRegistrada(TipoMensagem.PRIVADA, mensagemSalva.getId(),
+                saida.getRemetenteId(), saida.getDestinatarioId(), mensagemSalva.getSequencia(), novoConteudo,
+                mensagemSalva.getDataEnvio(), List.of(), mensagemSalva.getIdMensagemCliente());
+        AposCommit.executar(() -> buscaChatService.indexar(List.of(editada)));
+        return saida;
     }
 
     public MensagemPrivadaSaidaDTO excluirMensagemPrivada(Long id, String autorUsername) {
+        chatLogService.aguardarGravacao(TipoMensagem.PRIVADA, id);
+        return transactionTemplate.execute(status -> excluir(id, autorUsername));
+    }
+
+    private MensagemPrivadaSaidaDTO excluir(Long id, String autorUsername) {
         MensagemPrivada mensagem = mensagemPrivadaRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Mensagem não encontrada"));
 
@@ -218,22 +350,71 @@ public class MensagemPrivadaService {
         }
 
         mensagemPrivadaRepository.delete(mensagem);
+        mensagemPrivadaRepository.flush();
+        if (!mensagem.isLida() && !mensagem.getRemetente().getId().equals(mensagem.getDestinatario().getId())) {
+            Long destinatarioId = mensagem.getDestinatario().getId();
+            AposCommit.executar(() -> contadorNaoLidas.somar(destinatarioId, -1));
+        }
+        conversaService.recalcular(mensagem.getRemetente().getId(), mensagem.getDestinatario().getId());
+        AposCommit.executar(() -> mensagensRecentes.removerPrivada(mensagem.getConversaKey(), mensagem.getSequencia()));
+        AposCommit.executar(() -> buscaChatService.remover(TipoMensagem.PRIVADA, mensagem.getId()));
         return toDTO(mensagem);
     }
 
-    public List<MensagemPrivadaSaidaDTO> buscarMensagensPrivadas(Long user1, Long user2) {
-
-        var pageable = PageRequest.of(0, 50, Sort.by("dataEnvio").descending()); // Pega as 50 mais recentes
+    /**
+     * Página do histórico entre dois usuários, em ordem cronológica.
+     * Sem cursor traz as mais recentes; com {@code antesDe} traz as anteriores a essa mensagem ("carregar antigas").
+     */
+    @Transactional(readOnly = true)
+    public List<MensagemPrivadaSaidaDTO> buscarMensagensPrivadas(Long user1, Long user2, Long antesDe, int tamanho) {
+        String conversaKey = MensagemPrivada.chaveConversa(user1, user2);
+        var pageable = PageRequest.of(0, Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA)));
 
-        List<MensagemPrivada> mensagens = mensagemPrivadaRepository.findMensagensEntreUsuarios(user1, user2, pageable);
+        List<MensagemPrivada> mensagens = antesDe != null
+                ? mensagemPrivadaRepository.findHistoricoAntesDe(conversaKey, antesDe, pageable)
+                : mensagemPrivadaRepository.findHistorico(conversaKey, pageable);
 
-        mensagens.sort((m1, m2) -> m1.getDataEnvio().compareTo(m2.getDataEnvio()));
+        // A consulta vem da mais recente para a mais antiga; a tela exibe em ordem cronológica
+        List<MensagemPrivadaSaidaDTO> resultado = mensagens.stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+        Collections.reverse(resultado);
+        return resultado;
+    }
 
-        return mensagens.stream()
+    /**
+     * Mensagens encontradas pela busca do histórico, na ordem dos IDs. Excluídas no meio do caminho são ignoradas,
+     * assim como as de conversas de que o usuário não participa.
+     */
+    @Transactional(readOnly = true)
+    public List<MensagemPrivadaSaidaDTO> buscarPorIds(Long usuarioId, List<Long> ids) {
+        Map<Long, MensagemPrivada> mensagens = mensagemPrivadaRepository.findAllById(ids).stream()
+                .filter(m -> m.getRemetente().getId().equals(usuarioId) || m.getDestinatario().getId().equals(usuarioId))
+                .collect(Collectors.toMap(MensagemPrivada::getId, Function.identity()));
+        return ids.stream()
+                .map(mensagens::get)
+                .filter(Objects::nonNull)
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Retomada após reconexão: mensagens da conversa posteriores à última sequência recebida pelo cliente,
+     * em ordem. Sai da janela em memória quando possível; senão, do banco (sem transação: remetente e
+     * destinatário são carregados junto com a mensagem).
+     */
+    public List<MensagemPrivadaSaidaDTO> buscarMensagensDesde(Long usuarioId, Long outroUsuarioId, long sequencia, int tamanho) {
+        String conversaKey = MensagemPrivada.chaveConversa(usuarioId, outroUsuarioId);
+        int limite = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+
+        return mensagensRecentes.privadasDepoisDe(conversaKey, sequencia, limite).orElseGet(() -> {
+            chatLogService.aguardarGravacao(ChatLogService.chavePrivada(usuarioId, outroUsuarioId));
+            return mensagemPrivadaRepository.findDesdeSequencia(conversaKey, sequencia, PageRequest.of(0, limite)).stream()
+                    .map(this::toDTO)
+                    .collect(Collectors.toList());
+        });
+    }
+
     @Transactional
     public void bloquearUsuario(String emailBloqueador, Long idBloqueado) {
         Usuario bloqueador = usuarioRepository.findByEmail(emailBloqueador)
@@ -247,6 +428,7 @@ public class MensagemPrivadaService {
 
         bloqueador.getBloqueados().add(bloqueado);
         usuarioRepository.save(bloqueador);
+        bloqueioService.invalidar(bloqueador.getId(), bloqueado.getId());
     }
 
     @Transactional
@@ -258,6 +440,7 @@ public class MensagemPrivadaService {
 
         bloqueador.getBloqueados().remove(bloqueado);
         usuarioRepository.save(bloqueador);
+        bloqueioService.invalidar(bloqueador.getId(), bloqueado.getId());
     }
 
     @Transactional(readOnly = true)
@@ -268,7 +451,7 @@ public class MensagemPrivadaService {
                 .orElseThrow(() -> new NoSuchElementException("Outro usuário não encontrado"));
 
         // Retorna true se EU bloqueei ele
-        return usuario.getBloqueados().contains(outro);
+        return bloqueioService.bloqueou(usuario.getId(), outro.getId());
     }
 
     @Transactional(readOnly = true)
@@ -276,16 +459,31 @@ public class MensagemPrivadaService {
         Usuario usuario = usuarioRepository.findByEmail(emailUsuario).orElseThrow();
         Usuario outro = usuarioRepository.findById(idOutroUsuario).orElseThrow();
         // Retorna true se ELE me bloqueou
-        return outro.getBloqueados().contains(usuario);
+        return bloqueioService.foiBloqueadoPor(usuario.getId(), outro.getId());
     }
 
-    @Transactional
     public void excluirConversaInteira(String emailUsuario, Long idOutroUsuario) {
         Usuario usuario = usuarioRepository.findByEmail(emailUsuario)
                 .orElseThrow(() -> new NoSuchElementException("Usuário não encontrado"));
 
+        // Pendentes desta conversa chegariam ao banco depois da exclusão
+        chatLogService.aguardarGravacao(ChatLogService.chavePrivada(usuario.getId(), idOutroUsuario));
+        transactionTemplate.executeWithoutResult(status -> excluirConversa(usuario, idOutroUsuario));
+    }
+
+    private void excluirConversa(Usuario usuario, Long idOutroUsuario) {
         // Deleta todas as mensagens onde (remetente=eu e dest=ele) OU (remetente=ele e dest=eu)
         mensagemPrivadaRepository.deletarConversaEntreUsuarios(usuario.getId(), idOutroUsuario);
+        conversaService.excluir(usuario.getId(), idOutroUsuario);
+        String conversaKey = MensagemPrivada.chaveConversa(usuario.getId(), idOutroUsuario);
+        AposCommit.executar(() -> mensagensRecentes.descartarPrivada(conversaKey));
+        AposCommit.executar(() -> buscaChatService.removerConversa(conversaKey));
+
+        // Não lidas dos dois lados podem ter sido removidas: recarrega na próxima leitura
+        AposCommit.executar(() -> {
+            contadorNaoLidas.descartar(usuario.getId());
+            contadorNaoLidas.descartar(idOutroUsuario);
+        });
     }
 
     @Transactional(readOnly = true)
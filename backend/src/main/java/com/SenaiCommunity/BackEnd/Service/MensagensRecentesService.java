@@ -0,0 +1,92 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.DTO.MensagemGrupoSaidaDTO;
+import com.SenaiCommunity.BackEnd.DTO.MensagemPrivadaSaidaDTO;
+import com.SenaiCommunity.BackEnd.Service.Util.JanelaRecente;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Últimas mensagens enviadas em cada conversa e grupo, para a retomada após reconexão.
+ * O cliente informa a última sequência recebida; se ela ainda estiver coberta pela janela,
+ * a resposta sai da memória, senão o chamador consulta o banco.
+ */
+@Service
+public class MensagensRecentesService {
+
+    @Value("${chat.recentes.por-conversa:200}")
+    private int capacidadePorConversa;
+
+    private final Cache<String, JanelaRecente<MensagemPrivadaSaidaDTO>> privadas = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    private final Cache<Long, JanelaRecente<MensagemGrupoSaidaDTO>> grupos = Caffeine.newBuilder()
+            .maximumSize(2_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    // --- PRIVADAS (chave = conversa_key) ---
+
+    public void registrarPrivada(String conversaKey, MensagemPrivadaSaidaDTO dto) {
+        privadas.get(conversaKey, k -> new JanelaRecente<>(capacidadePorConversa, dto.getSequencia()))
+                .adicionar(dto.getSequencia(), dto);
+    }
+
+    public void atualizarPrivada(String conversaKey, MensagemPrivadaSaidaDTO dto) {
+        JanelaRecente<MensagemPrivadaSaidaDTO> janela = privadas.getIfPresent(conversaKey);
+        if (janela != null && dto.getSequencia() != null) janela.substituir(dto.getSequencia(), dto);
+    }
+
+    public void removerPrivada(String conversaKey, Long sequencia) {
+        JanelaRecente<MensagemPrivadaSaidaDTO> janela = privadas.getIfPresent(conversaKey);
+        if (janela != null && sequencia != null) janela.remover(sequencia);
+    }
+
+    public void marcarPrivadasLidas(String conversaKey, Long leitorId) {
+        JanelaRecente<MensagemPrivadaSaidaDTO> janela = privadas.getIfPresent(conversaKey);
+        if (janela != null) {
+            janela.paraCada(dto -> {
+                if (leitorId.equals(dto.getDestinatarioId())) dto.setLida(true);
+            });
+        }
+    }
+
+    public void descartarPrivada(String conversaKey) {
+        privadas.invalidate(conversaKey);
+    }
+
+    public Optional<List<MensagemPrivadaSaidaDTO>> privadasDepoisDe(String conversaKey, long sequencia, int limite) {
+        JanelaRecente<MensagemPrivadaSaidaDTO> janela = privadas.getIfPresent(conversaKey);
+        return janela != null ? janela.depoisDe(sequencia, limite) : Optional.empty();
+    }
+
+    // --- GRUPOS (chave = ID do projeto) ---
+
+    public void registrarGrupo(Long projetoId, MensagemGrupoSaidaDTO dto) {
+        grupos.get(projetoId, k -> new JanelaRecente<>(capacidadePorConversa, dto.getSequencia()))
+                .adicionar(dto.getSequencia(), dto);
+    }
+
+    public void atualizarGrupo(Long projetoId, MensagemGrupoSaidaDTO dto) {
+        JanelaRecente<MensagemGrupoSaidaDTO> janela = grupos.getIfPresent(projetoId);
+        if (janela != null && dto.getSequencia() != null) janela.substituir(dto.getSequencia(), dto);
+    }
+
+    public void removerGrupo(Long projetoId, Long sequencia) {
+        JanelaRecente<MensagemGrupoSaidaDTO> janela = grupos.getIfPresent(projetoId);
+        if (janela != null && sequencia != null) janela.remover(sequencia);
+    }
+
+    public Optional<List<MensagemGrupoSaidaDTO>> gruposDepoisDe(Long projetoId, long sequencia, int limite) {
+        JanelaRecente<MensagemGrupoSaidaDTO> janela = grupos.getIfPresent(projetoId);
+        return janela != null ? janela.depoisDe(sequencia, limite) : Optional.empty();
+    }
+}
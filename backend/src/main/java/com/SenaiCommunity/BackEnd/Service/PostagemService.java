@@ -1,5 +1,6 @@
 package com.SenaiCommunity.BackEnd.Service;
 
+import com.SenaiCommunity.BackEnd.Config.CacheConfig;
 import com.SenaiCommunity.BackEnd.DTO.ComentarioSaidaDTO;
 import com.SenaiCommunity.BackEnd.DTO.PostagemEntradaDTO;
 import com.SenaiCommunity.BackEnd.DTO.PostagemSaidaDTO;
@@ -9,11 +10,16 @@ import com.SenaiCommunity.BackEnd.Entity.Usuario;
 import com.SenaiCommunity.BackEnd.Exception.ConteudoImproprioException;
 import com.SenaiCommunity.BackEnd.Repository.PostagemRepository;
 import com.SenaiCommunity.BackEnd.Repository.UsuarioRepository;
+import com.SenaiCommunity.BackEnd.Security.UsuarioAtual;
+import com.SenaiCommunity.BackEnd.Service.CurtidasVisualizadorService.CurtidasDoVisualizador;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,6 +31,11 @@ import java.util.stream.Collectors;
 @Service
 public class PostagemService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 50;
+
+    // Tamanho da primeira página do mural guardada em cache; páginas maiores vão direto ao banco
+    private static final int TAMANHO_PRIMEIRA_PAGINA_MURAL = 20;
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
@@ -37,8 +48,26 @@ public class PostagemService {
     @Autowired
     private FiltroProfanidadeService filtroProfanidade;
 
+    @Autowired
+    private ComentarioService comentarioService;
+
+    @Autowired
+    private CurtidasVisualizadorService curtidasVisualizadorService;
+
+    @Autowired
+    private UsuarioAtual usuarioAtual;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private FeedAmigosService feedAmigosService;
+
     @Transactional
-    @CacheEvict(value = "feed-postagens", allEntries = true)
+    @CacheEvict(value = CacheConfig.CACHE_MURAL_PRIMEIRA_PAGINA, key = "#result.autorId")
     public PostagemSaidaDTO criarPostagem(String autorUsername, PostagemEntradaDTO dto, List<MultipartFile> arquivos) {
         Usuario autor = usuarioRepository.findByEmail(autorUsername)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -69,11 +98,15 @@ public class PostagemService {
         }
 
         Postagem postagemSalva = postagemRepository.save(novaPostagem);
+        feedAmigosService.distribuir(autor.getId(), postagemSalva.getId());
         return toDTO(postagemSalva);
     }
 
     @Transactional
-    @CacheEvict(value = "feed-postagens", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.CACHE_FEED_POSTAGENS, key = "#id"),
+            @CacheEvict(value = CacheConfig.CACHE_MURAL_PRIMEIRA_PAGINA, key = "#result.autorId")
+    })
     public PostagemSaidaDTO editarPostagem(Long id, String username, PostagemEntradaDTO dto, List<MultipartFile> novosArquivos) {
         Postagem postagem = buscarPorId(id);
         if (!postagem.getAutor().getEmail().equals(username)) {
@@ -113,7 +146,7 @@ public class PostagemService {
     }
 
     @Transactional
-    @CacheEvict(value = "feed-postagens", allEntries = true)
+    @CacheEvict(value = CacheConfig.CACHE_FEED_POSTAGENS, key = "#id")
     public void excluirPostagem(Long id, String username) {
         Postagem postagem = buscarPorId(id);
         if (!postagem.getAutor().getEmail().equals(username)) {
@@ -125,12 +158,62 @@ public class PostagemService {
             });
         }
         postagemRepository.deleteById(id);
+        trendingService.remover(id);
+        feedAmigosService.retirar(postagem.getAutor().getId(), id);
+        cacheManager.getCache(CacheConfig.CACHE_MURAL_PRIMEIRA_PAGINA).evict(postagem.getAutor().getId());
     }
 
+    /**
+     * Feed de amigos do usuário logado (postagens dele e dos amigos aceitos), paginado pelo ID da última postagem.
+     */
     @Transactional(readOnly = true)
-    public List<PostagemSaidaDTO> buscarPostagensPublicas() {
-        List<Postagem> posts = postagemRepository.findTop10ByOrderByDataPostagemDesc();
-        return posts.stream().map(this::toDTO).collect(Collectors.toList());
+    public List<PostagemSaidaDTO> buscarFeedAmigos(Long antesDe, int tamanho) {
+        Long usuarioId = usuarioAtual.getId();
+        if (usuarioId == null) {
+            return Collections.emptyList();
+        }
+        return renderizarPagina(feedAmigosService.buscarIds(usuarioId, antesDe, Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA))));
+    }
+
+    /**
+     * Postagens em alta, na ordem do ranking mantido em memória pelo {@link TrendingService}.
+     */
+    @Transactional(readOnly = true)
+    public List<PostagemSaidaDTO> buscarPostagensEmAlta(int tamanho) {
+        return renderizarPagina(trendingService.topIds(Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA))));
+    }
+
+    /**
+     * Feed público paginado por cursor (dataPostagem, id).
+     * Sem cursor retorna a primeira página; com cursor retorna as postagens anteriores a ele.
+     */
+    @Transactional(readOnly = true)
+    public List<PostagemSaidaDTO> buscarPostagensPublicas(LocalDateTime cursorData, Long cursorId, int tamanho) {
+        Pageable pagina = PageRequest.of(0, Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA)));
+
+        List<Long> ids = (cursorData != null && cursorId != null)
+                ? postagemRepository.findIdsFeedAntesDe(cursorData, cursorId, pagina)
+                : postagemRepository.findIdsFeed(pagina);
+
+        return renderizarPagina(ids);
+    }
+
+    /**
+     * Hidrata as postagens da página em um número fixo de consultas (uma por associação),
+     * preservando a ordem dos IDs recebidos.
+     */
+    private List<Postagem> carregarPostagens(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Postagem> porId = postagemRepository.findComAutorByIdIn(ids).stream()
+                .collect(Collectors.toMap(Postagem::getId, p -> p));
+
+        // Inicializa a coleção de arquivos nas mesmas entidades gerenciadas (os comentários vêm só como prévia)
+        postagemRepository.carregarArquivos(ids);
+
+        return ids.stream().map(porId::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     public Postagem buscarPorId(Long id) {
@@ -149,62 +232,126 @@ public class PostagemService {
         return postagem;
     }
 
+    @Transactional(readOnly = true)
     public PostagemSaidaDTO buscarPostagemPorIdComComentarios(Long id) {
-        return toDTO(buscarPorId(id));
+        List<PostagemSaidaDTO> resultado = renderizarPagina(List.of(id));
+        if (resultado.isEmpty()) {
+            throw new EntityNotFoundException("Postagem não encontrada");
+        }
+        return resultado.get(0);
     }
 
+    /**
+     * Mural do perfil paginado por cursor (dataPostagem, id).
+     * Os IDs da primeira página de cada autor ficam em cache até ele criar, editar ou excluir uma postagem;
+     * a renderização de cada postagem vem do cache "feed-postagens", que acompanha curtidas e comentários.
+     */
     @Transactional(readOnly = true)
-    public List<PostagemSaidaDTO> buscarPostagensPorUsuario(Long usuarioId) {
-        return postagemRepository.findByAutorIdOrderByDataPostagemDesc(usuarioId)
-                .stream().map(this::toDTO).collect(Collectors.toList());
+    public List<PostagemSaidaDTO> buscarPostagensPorUsuario(Long usuarioId, LocalDateTime cursorData, Long cursorId, int tamanho) {
+        int limite = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+
+        List<Long> ids;
+        if (cursorData != null && cursorId != null) {
+            ids = postagemRepository.findIdsDoAutorAntesDe(usuarioId, cursorData, cursorId, PageRequest.of(0, limite));
+        } else if (limite <= TAMANHO_PRIMEIRA_PAGINA_MURAL) {
+            List<Long> primeiraPagina = cacheManager.getCache(CacheConfig.CACHE_MURAL_PRIMEIRA_PAGINA).get(usuarioId,
+                    () -> postagemRepository.findIdsDoAutor(usuarioId, PageRequest.of(0, TAMANHO_PRIMEIRA_PAGINA_MURAL)));
+            ids = primeiraPagina.subList(0, Math.min(limite, primeiraPagina.size()));
+        } else {
+            ids = postagemRepository.findIdsDoAutor(usuarioId, PageRequest.of(0, limite));
+        }
+
+        return renderizarPagina(ids);
     }
 
-    private PostagemSaidaDTO toDTO(Postagem postagem) {
-        // Converte o Set de arquivos para List<String> para o DTO
-        List<String> urls = postagem.getArquivos() != null
-                ? postagem.getArquivos().stream().map(ArquivoMidia::getUrl).collect(Collectors.toList())
-                : Collections.emptyList();
+    /**
+     * Monta a página a partir do cache "feed-postagens" (renderização sem dados do visualizador,
+     * chave = ID da postagem). Só as postagens ausentes no cache são hidratadas do banco.
+     */
+    private List<PostagemSaidaDTO> renderizarPagina(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        Long usuarioLogadoId = null;
-        try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-                usuarioLogadoId = usuarioRepository.findByEmail(auth.getName()).map(Usuario::getId).orElse(null);
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_FEED_POSTAGENS);
+        Map<Long, PostagemSaidaDTO> renderizadas = new HashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : ids) {
+            PostagemSaidaDTO emCache = cache.get(id, PostagemSaidaDTO.class);
+            if (emCache != null) {
+                renderizadas.put(id, emCache);
+            } else {
+                faltantes.add(id);
             }
-        } catch (Exception e) {
-            System.err.println("Erro ao identificar usuário logado: " + e.getMessage());
         }
 
-        final Long userId = usuarioLogadoId;
+        for (PostagemSaidaDTO renderizada : renderizar(carregarPostagens(faltantes))) {
+            cache.put(renderizada.getId(), renderizada);
+            renderizadas.put(renderizada.getId(), renderizada);
+        }
 
-        // Converte o Set de comentários para List<DTO>
-        List<ComentarioSaidaDTO> comentariosDTO = postagem.getComentarios() != null
-                ? postagem.getComentarios().stream().map(c -> {
-            boolean curtido = false;
-            if (userId != null && c.getCurtidas() != null) {
-                curtido = c.getCurtidas().stream().anyMatch(l -> l.getUsuario().getId().equals(userId));
-            }
-            return ComentarioSaidaDTO.builder()
-                    .id(c.getId())
-                    .conteudo(c.getConteudo())
-                    .dataCriacao(c.getDataCriacao())
-                    .autorId(c.getAutor().getId())
-                    .nomeAutor(c.getAutor().getNome())
-                    .postagemId(c.getPostagem().getId())
-                    .parentId(c.getParent() != null ? c.getParent().getId() : null)
-                    .replyingToName(c.getParent() != null ? c.getParent().getAutor().getNome() : null)
-                    .destacado(c.isDestacado())
-                    .totalCurtidas(c.getCurtidas() != null ? c.getCurtidas().size() : 0)
-                    .curtidoPeloUsuario(curtido)
-                    .urlFotoAutor(c.getAutor().getFotoPerfil())
-                    .build();
-        }).collect(Collectors.toList()) : Collections.emptyList();
-
-        boolean curtidoPost = false;
-        if (userId != null && postagem.getCurtidas() != null) {
-            curtidoPost = postagem.getCurtidas().stream().anyMatch(l -> l.getUsuario().getId().equals(userId));
+        return aplicarCurtidasDoVisualizador(ids.stream()
+                .map(renderizadas::get).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    /**
+     * Sobrepõe o "curtido por mim" do visualizador, resolvido em uma única consulta.
+     * Retorna cópias: as instâncias renderizadas podem estar no cache e não devem ser alteradas.
+     */
+    private List<PostagemSaidaDTO> aplicarCurtidasDoVisualizador(List<PostagemSaidaDTO> renderizadas) {
+        if (renderizadas.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> postagemIds = new ArrayList<>(renderizadas.size());
+        List<Long> comentarioIds = new ArrayList<>();
+        for (PostagemSaidaDTO postagem : renderizadas) {
+            postagemIds.add(postagem.getId());
+            postagem.getComentarios().forEach(c -> comentarioIds.add(c.getId()));
         }
 
+        CurtidasDoVisualizador curtidas = curtidasVisualizadorService.resolver(usuarioAtual.getId(), postagemIds, comentarioIds);
+
+        return renderizadas.stream().map(p -> p.toBuilder()
+                        .curtidoPeloUsuario(curtidas.curtiuPostagem(p.getId()))
+                        .totalCurtidas(curtidas.totalPostagem(p.getId(), p.getTotalCurtidas()))
+                        .comentarios(p.getComentarios().stream()
+                                .map(c -> c.toBuilder()
+                                        .curtidoPeloUsuario(curtidas.curtiuComentario(c.getId()))
+                                        .totalCurtidas(curtidas.totalComentario(c.getId(), c.getTotalCurtidas()))
+                                        .build())
+                                .collect(Collectors.toList()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private List<PostagemSaidaDTO> toDTOs(List<Postagem> postagens) {
+        return aplicarCurtidasDoVisualizador(renderizar(postagens));
+    }
+
+    private PostagemSaidaDTO toDTO(Postagem postagem) {
+        return toDTOs(List.of(postagem)).get(0);
+    }
+
+    /**
+     * Renderização independente do visualizador (curtidoPeloUsuario sempre false).
+     * Cada postagem leva só a prévia dos comentários; a thread completa é paginada em /comentarios.
+     */
+    private List<PostagemSaidaDTO> renderizar(List<Postagem> postagens) {
+        Map<Long, List<ComentarioSaidaDTO>> previas = comentarioService.renderizarPrevias(
+                postagens.stream().map(Postagem::getId).collect(Collectors.toList()));
+
+        return postagens.stream()
+                .map(p -> renderizar(p, previas.getOrDefault(p.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
+    private PostagemSaidaDTO renderizar(Postagem postagem, List<ComentarioSaidaDTO> comentariosDTO) {
+        // Converte o Set de arquivos para List<String> para o DTO
+        List<String> urls = postagem.getArquivos() != null
+                ? postagem.getArquivos().stream().map(ArquivoMidia::getUrl).collect(Collectors.toList())
+                : Collections.emptyList();
+
         return PostagemSaidaDTO.builder()
                 .id(postagem.getId())
                 .conteudo(postagem.getConteudo())
@@ -213,9 +360,9 @@ public class PostagemService {
                 .nomeAutor(postagem.getAutor().getNome())
                 .urlsMidia(urls)
                 .comentarios(comentariosDTO)
-                .totalCurtidas(postagem.getCurtidas() != null ? postagem.getCurtidas().size() : 0)
+                .totalCurtidas(postagem.getTotalCurtidas())
+                .totalComentarios(postagem.getTotalComentarios())
                 .urlFotoAutor(postagem.getAutor().getFotoPerfil())
-                .curtidoPeloUsuario(curtidoPost)
                 .build();
     }
 
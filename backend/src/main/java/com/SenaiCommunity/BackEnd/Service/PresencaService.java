@@ -0,0 +1,122 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Repository.AmizadeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Distribuição da presença (online/offline) apenas para os amigos e para os projetos de cada usuário.
+ *
+ * Em vez de enviar o conjunto inteiro de online a todos, cada mudança é acumulada e, a cada tick,
+ * só o que mudou é enviado: {"tipo": "presenca", "online": [...], "offline": [...]} (e-mails).
+ * Os amigos conectados recebem em "/user/queue/status" (uma mensagem por amigo) e cada projeto do
+ * usuário em "/topic/grupo/{projetoId}/status" (uma mensagem por projeto, também para quem não é amigo).
+ * Só chegam aqui transições reais (primeira sessão aberta, última sessão encerrada ou expirada);
+ * conectar e desconectar dentro do mesmo tick não gera evento.
+ * O estado inicial vem da inscrição em "/app/status/amigos" ou "/app/status/projeto/{id}" (ver PresencaController).
+ */
+@Service
+public class PresencaService {
+
+    @Autowired
+    private UserStatusService userStatusService;
+
+    @Autowired
+    private AmizadeRepository amizadeRepository;
+
+    @Autowired
+    private MembrosProjetoService membrosProjetoService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    // Usuários cuja presença mudou desde o último tick (ID -> e-mail, que some do registro ao ficar offline)
+    private final Map<Long, String> pendentes = new ConcurrentHashMap<>();
+
+    // Último estado já enviado aos amigos de cada usuário (ausente = offline)
+    private final Set<Long> anunciadosOnline = ConcurrentHashMap.newKeySet();
+
+    public void registrarMudanca(Long usuarioId, String email) {
+        pendentes.put(usuarioId, email);
+    }
+
+    /**
+     * E-mails dos amigos do usuário que estão online no momento (snapshot inicial).
+     */
+    public List<String> amigosOnline(Long usuarioId) {
+        return amizadeRepository.findIdsAmigos(usuarioId).stream()
+                .map(userStatusService::emailSeOnline)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * E-mails dos participantes do projeto que estão online no momento (snapshot inicial).
+     * Só para quem participa do projeto.
+     */
+    public List<String> membrosOnline(Long projetoId, Long usuarioId) {
+        membrosProjetoService.verificarParticipante(projetoId, usuarioId);
+        return Arrays.stream(membrosProjetoService.idsParticipantes(projetoId))
+                .mapToObj(userStatusService::emailSeOnline)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // Sessões que pararam de enviar heartbeat sem que a desconexão chegasse
+    @Scheduled(fixedDelayString = "${presenca.expiracao-ms:30000}")
+    public void expirarSessoes() {
+        userStatusService.expirarSessoes(this::registrarMudanca);
+    }
+
+    @Scheduled(fixedDelayString = "${presenca.tick-ms:1000}")
+    public void publicarMudancas() {
+        if (pendentes.isEmpty()) return;
+
+        Map<Long, String> mudaram = new HashMap<>(pendentes);
+        mudaram.forEach(pendentes::remove);
+
+        // Agrupa por destinatário: cada amigo conectado e cada projeto recebem uma única mensagem por tick
+        Map<String, Map<String, List<String>>> porDestinatario = new HashMap<>();
+        Map<Long, Map<String, List<String>>> porProjeto = new HashMap<>();
+        mudaram.forEach((usuarioId, email) -> {
+            boolean online = userStatusService.isOnline(usuarioId);
+            boolean jaAnunciado = online ? !anunciadosOnline.add(usuarioId) : !anunciadosOnline.remove(usuarioId);
+            if (jaAnunciado) return; // estado igual ao último enviado
+
+            for (Long amigoId : amizadeRepository.findIdsAmigos(usuarioId)) {
+                String destinatario = userStatusService.emailSeOnline(amigoId);
+                if (destinatario == null) continue;
+                porDestinatario
+                        .computeIfAbsent(destinatario, k -> Map.of("online", new ArrayList<>(), "offline", new ArrayList<>()))
+                        .get(online ? "online" : "offline")
+                        .add(email);
+            }
+            for (Long projetoId : membrosProjetoService.projetosDe(usuarioId)) {
+                porProjeto
+                        .computeIfAbsent(projetoId, k -> Map.of("online", new ArrayList<>(), "offline", new ArrayList<>()))
+                        .get(online ? "online" : "offline")
+                        .add(email);
+            }
+        });
+
+        porDestinatario.forEach((destinatario, delta) -> messagingTemplate.convertAndSendToUser(
+                destinatario, "/queue/status",
+                Map.of("tipo", "presenca", "online", delta.get("online"), "offline", delta.get("offline"))));
+
+        porProjeto.forEach((projetoId, delta) -> messagingTemplate.convertAndSend(
+                "/topic/grupo/" + projetoId + "/status",
+                Map.of("tipo", "presenca", "online", delta.get("online"), "offline", delta.get("offline"))));
+    }
+}
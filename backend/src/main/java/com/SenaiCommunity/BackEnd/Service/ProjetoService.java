@@ -5,9 +5,11 @@ import com.SenaiCommunity.BackEnd.DTO.SolicitacaoEntradaDTO;
 import com.SenaiCommunity.BackEnd.Entity.*;
 import com.SenaiCommunity.BackEnd.Exception.ConteudoImproprioException;
 import com.SenaiCommunity.BackEnd.Repository.*;
+import com.SenaiCommunity.BackEnd.Service.Util.AposCommit;
 import org.springframework.cache.annotation.Cacheable;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -42,6 +44,18 @@ public class ProjetoService {
     @Autowired
     private ConviteProjetoRepository conviteProjetoRepository;
 
+    @Autowired
+    private BuscaChatService buscaChatService;
+
+    @Autowired
+    private MembrosProjetoService membrosProjetoService;
+
+    @Autowired
+    private SequenciaChatService sequenciaChatService;
+
+    @Value("${chat.canal-grande.max-membros:5000}")
+    private int limiteCanalGrande;
+
     @Autowired
     private NotificacaoService notificacaoService;
 
@@ -139,6 +153,7 @@ public class ProjetoService {
         }
 
         projetoMembroRepository.delete(membro);
+        membrosProjetoService.invalidar(projetoId);
 
         String mensagem = String.format("%s saiu do projeto '%s'.", membro.getUsuario().getNome(), projeto.getTitulo());
         notificacaoService.criarNotificacao(projeto.getAutor(), mensagem, "MEMBRO_SAIU", projeto.getId());
@@ -185,9 +200,7 @@ public class ProjetoService {
 
         Integer totalMembros = projetoMembroRepository.countMembrosByProjetoId(projeto.getId());
         if (totalMembros == null) totalMembros = 0;
-        Integer maxMembros = projeto.getMaxMembros() != null ? projeto.getMaxMembros() : 50;
-
-        if (totalMembros >= maxMembros) {
+        if (totalMembros >= limiteMembros(projeto)) {
             throw new IllegalArgumentException("O projeto já atingiu o limite máximo de membros.");
         }
 
@@ -199,10 +212,13 @@ public class ProjetoService {
         novoMembro.setUsuario(solicitacao.getUsuarioSolicitante());
         novoMembro.setRole(ProjetoMembro.RoleMembro.MEMBRO);
         novoMembro.setDataEntrada(LocalDateTime.now());
+        // Mensagens anteriores à entrada não contam como não lidas
+        novoMembro.setUltimaSequenciaLida(sequenciaChatService.atualGrupo(projeto.getId()));
         Usuario quemAprovou = usuarioRepository.findById(usuarioLogadoId).orElse(projeto.getAutor());
         novoMembro.setConvidadoPor(quemAprovou);
 
         projetoMembroRepository.save(novoMembro);
+        membrosProjetoService.invalidar(projeto.getId());
 
         String mensagem = String.format("Sua solicitação para entrar no projeto '%s' foi aprovada!", projeto.getTitulo());
         notificacaoService.criarNotificacao(solicitacao.getUsuarioSolicitante(), mensagem, "SOLICITACAO_ACEITA", projeto.getId());
@@ -276,10 +292,7 @@ public class ProjetoService {
         Integer totalMembros = projetoMembroRepository.countMembrosByProjetoId(projetoId);
         if (totalMembros == null) totalMembros = 0;
 
-        Integer maxMembros = projeto.getMaxMembros();
-        if (maxMembros == null) maxMembros = 50;
-
-        if (totalMembros >= maxMembros) {
+        if (totalMembros >= limiteMembros(projeto)) {
             throw new IllegalArgumentException("Projeto atingiu o limite máximo de membros");
         }
 
@@ -288,9 +301,11 @@ public class ProjetoService {
         membro.setUsuario(usuario);
         membro.setRole(ProjetoMembro.RoleMembro.MEMBRO);
         membro.setDataEntrada(LocalDateTime.now());
+        membro.setUltimaSequenciaLida(sequenciaChatService.atualGrupo(projetoId));
         membro.setConvidadoPor(projeto.getAutor());
 
         projetoMembroRepository.save(membro);
+        membrosProjetoService.invalidar(projetoId);
 
         String mensagem = String.format("%s entrou no projeto '%s'.", usuario.getNome(), projeto.getTitulo());
         notificacaoService.criarNotificacao(projeto.getAutor(), mensagem, "MEMBRO_ADICIONADO", projeto.getId());
@@ -384,6 +399,8 @@ public class ProjetoService {
         }
 
         Projeto salvo = projetoRepository.save(projeto);
+        // o autor participa do chat: a edição pode trocá-lo
+        membrosProjetoService.invalidar(salvo.getId());
 
         if (isNovoGrupo) {
             adicionarMembroComoAdmin(salvo, autor);
@@ -442,10 +459,7 @@ public class ProjetoService {
 
         Integer totalMembros = projetoMembroRepository.countMembrosByProjetoId(projetoId);
         if (totalMembros == null) totalMembros = 0;
-        Integer maxMembros = projeto.getMaxMembros();
-        if (maxMembros == null) maxMembros = 50;
-
-        if (totalMembros >= maxMembros) {
+        if (totalMembros >= limiteMembros(projeto)) {
             throw new IllegalArgumentException("Grupo atingiu o limite máximo de membros");
         }
 
@@ -477,10 +491,7 @@ public class ProjetoService {
 
         Integer totalMembros = projetoMembroRepository.countMembrosByProjetoId(convite.getProjeto().getId());
         if (totalMembros == null) totalMembros = 0;
-        Integer maxMembros = convite.getProjeto().getMaxMembros();
-        if (maxMembros == null) maxMembros = 50;
-
-        if (totalMembros >= maxMembros) {
+        if (totalMembros >= limiteMembros(convite.getProjeto())) {
             throw new IllegalArgumentException("Grupo atingiu o limite máximo de membros");
         }
 
@@ -493,9 +504,11 @@ public class ProjetoService {
         membro.setUsuario(convite.getUsuarioConvidado());
         membro.setRole(ProjetoMembro.RoleMembro.MEMBRO);
         membro.setDataEntrada(LocalDateTime.now());
+        membro.setUltimaSequenciaLida(sequenciaChatService.atualGrupo(convite.getProjeto().getId()));
         membro.setConvidadoPor(convite.getConvidadoPor());
 
         projetoMembroRepository.save(membro);
+        membrosProjetoService.invalidar(convite.getProjeto().getId());
 
         String mensagem = String.format("%s aceitou seu convite e agora faz parte do projeto '%s'.", convite.getUsuarioConvidado().getNome(), convite.getProjeto().getTitulo());
         notificacaoService.criarNotificacao(convite.getProjeto().getAutor(), mensagem, "MEMBRO_ADICIONADO", convite.getProjeto().getId());
@@ -524,6 +537,7 @@ public class ProjetoService {
         }
 
         projetoMembroRepository.delete(membro);
+        membrosProjetoService.invalidar(projetoId);
 
         String mensagem = String.format("Você foi removido do projeto '%s'.", projeto.getTitulo());
         notificacaoService.criarNotificacao(membro.getUsuario(), mensagem, "MEMBRO_REMOVIDO", projeto.getId());
@@ -647,6 +661,8 @@ public class ProjetoService {
         }
 
         projetoRepository.deleteById(id);
+        membrosProjetoService.invalidar(id);
+        AposCommit.executar(() -> buscaChatService.removerProjeto(id));
     }
 
     private ProjetoDTO converterParaDTO(Projeto projeto) {
@@ -672,6 +688,7 @@ public class ProjetoService {
         dto.setDataCriacao(projeto.getDataCriacao());
         dto.setMaxMembros(projeto.getMaxMembros());
         dto.setGrupoPrivado(projeto.getGrupoPrivado());
+        dto.setCanalGrande(Boolean.TRUE.equals(projeto.getCanalGrande()));
 
         dto.setAutorId(projeto.getAutor() != null ? projeto.getAutor().getId() : null);
         dto.setAutorNome(projeto.getAutor() != null ? projeto.getAutor().getNome() : null);
@@ -727,6 +744,26 @@ public class ProjetoService {
         return dto;
     }
 
+    /**
+     * Liga/desliga o modo canal grande (turmas, cursos inteiros). No modo canal grande o limite de membros
+     * passa a ser {@code chat.canal-grande.max-membros}; o chat já não tem custo por membro no envio.
+     */
+    @Transactional
+    public void definirCanalGrande(Long projetoId, boolean ativo) {
+        Projeto projeto = projetoRepository.findById(projetoId)
+                .orElseThrow(() -> new EntityNotFoundException("Projeto não encontrado com id: " + projetoId));
+        projeto.setCanalGrande(ativo);
+        projetoRepository.save(projeto);
+        notificarAtualizacaoProjeto(projetoId, "projeto_atualizado");
+    }
+
+    private int limiteMembros(Projeto projeto) {
+        if (Boolean.TRUE.equals(projeto.getCanalGrande())) {
+            return limiteCanalGrande;
+        }
+        return projeto.getMaxMembros() != null ? projeto.getMaxMembros() : 50;
+    }
+
     private boolean isAdmin(Long projetoId, Long usuarioId) {
         Projeto projeto = projetoRepository.findById(projetoId).orElse(null);
         if (projeto != null && projeto.getAutor() != null && projeto.getAutor().getId().equals(usuarioId)) {
@@ -742,6 +779,8 @@ public class ProjetoService {
         membro.setUsuario(usuario);
         membro.setRole(ProjetoMembro.RoleMembro.ADMIN);
         membro.setDataEntrada(LocalDateTime.now());
+        membro.setUltimaSequenciaLida(sequenciaChatService.atualGrupo(projeto.getId()));
         projetoMembroRepository.save(membro);
+        membrosProjetoService.invalidar(projeto.getId());
     }
 }
\ No newline at end of file
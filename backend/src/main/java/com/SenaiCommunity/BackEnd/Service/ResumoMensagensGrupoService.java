@@ -0,0 +1,81 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Entity.Projeto;
+import com.SenaiCommunity.BackEnd.Repository.ProjetoMembroRepository;
+import com.SenaiCommunity.BackEnd.Repository.ProjetoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Notificações de mensagens de grupo em forma de resumo.
+ *
+ * O envio de mensagem só marca o projeto como ativo (custo constante, independente do número de membros).
+ * Periodicamente, cada projeto ativo gera no máximo um aviso "novas mensagens" por membro que tenha mensagens
+ * não lidas e nenhum aviso desse projeto ainda não lido, inserido em lote. O badge em tempo real continua
+ * vindo do tópico de atividade do grupo e do cursor de leitura.
+ */
+@Service
+public class ResumoMensagensGrupoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumoMensagensGrupoService.class);
+
+    @Autowired
+    private ProjetoMembroRepository projetoMembroRepository;
+
+    @Autowired
+    private ProjetoRepository projetoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Set<Long> projetosComAtividade = ConcurrentHashMap.newKeySet();
+
+    public void registrarAtividade(Long projetoId) {
+        projetosComAtividade.add(projetoId);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.grupo.resumo-ms:600000}")
+    public void enviarResumos() {
+        List<Long> projetos = new ArrayList<>(projetosComAtividade);
+        projetosComAtividade.removeAll(projetos);
+
+        int avisos = 0;
+        for (Long projetoId : projetos) {
+            try {
+                avisos += enviarResumo(projetoId);
+            } catch (Exception e) {
+                logger.error("Falha ao gerar resumo de mensagens do projeto {}: {}", projetoId, e.getMessage());
+            }
+        }
+        if (avisos > 0) {
+            logger.info("Resumo de mensagens de grupo: {} avisos em {} projetos", avisos, projetos.size());
+        }
+    }
+
+    private int enviarResumo(Long projetoId) {
+        List<Long> destinatarios = projetoMembroRepository.findIdsParaResumoDeMensagens(projetoId);
+        if (destinatarios.isEmpty()) return 0;
+
+        String titulo = projetoRepository.findById(projetoId).map(Projeto::getTitulo).orElse(null);
+        if (titulo == null) return 0; // projeto excluído nesse meio tempo
+
+        String mensagem = "Novas mensagens no projeto '" + titulo + "'";
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO notificacao (destinatario_id, mensagem, data_criacao, lida, tipo, id_referencia) " +
+                        "VALUES (?, ?, ?, false, 'MENSAGEM_PROJETO', ?)",
+                destinatarios.stream().map(id -> new Object[]{id, mensagem, agora, projetoId}).toList());
+        return destinatarios.size();
+    }
+}
@@ -0,0 +1,104 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Entity.MensagemPrivada;
+import com.SenaiCommunity.BackEnd.Repository.MensagemGrupoRepository;
+import com.SenaiCommunity.BackEnd.Repository.MensagemPrivadaRepository;
+import com.SenaiCommunity.BackEnd.Repository.ProjetoMembroRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Números de sequência por conversa privada e por grupo, crescentes e sem repetição.
+ *
+ * O último número de cada conversa fica num cache limitado; quando a conversa não está nele (primeira mensagem,
+ * ou parada tempo suficiente para sair) ele é o maior entre o gravado no banco e o das mensagens da conversa
+ * ainda pendentes no log de chat (sem esperar a gravação). Uma conversa em uso não sai do cache: o acesso
+ * renova a validade e a remoção por tamanho escolhe as menos usadas.
+ * Pressupõe uma única instância gravando mensagens.
+ */
+@Service
+public class SequenciaChatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenciaChatService.class);
+
+    @Autowired
+    private MensagemPrivadaRepository mensagemPrivadaRepository;
+
+    @Autowired
+    private MensagemGrupoRepository mensagemGrupoRepository;
+
+    @Autowired
+    private ProjetoMembroRepository projetoMembroRepository;
+
+    @Autowired
+    private ChatLogService chatLogService;
+
+    private final Cache<String, AtomicLong> ultimas = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * Mensagens anteriores à coluna recebem a numeração antes de qualquer envio (que parte do maior número gravado).
+     */
+    @PostConstruct
+    public void preencherSequencias() {
+        try {
+            // O UPDATE numera a tabela inteira: só roda se ainda houver mensagem sem sequência
+            int privadas = mensagemPrivadaRepository.existsBySequenciaIsNull() ? mensagemPrivadaRepository.preencherSequencias() : 0;
+            int grupos = mensagemGrupoRepository.existsBySequenciaIsNull() ? mensagemGrupoRepository.preencherSequencias() : 0;
+            if (privadas + grupos > 0) {
+                logger.info("Sequência preenchida em {} mensagens privadas e {} de grupo", privadas, grupos);
+            }
+            // Membros anteriores ao cursor de leitura começam com o grupo lido até a última mensagem
+            // (quem entra depois já recebe o cursor na entrada, então isto só roda uma vez)
+            if (projetoMembroRepository.existsByUltimaSequenciaLidaIsNull()) {
+                int cursores = projetoMembroRepository.iniciarCursoresDeLeitura();
+                logger.info("Cursor de leitura iniciado para {} membros de projeto", cursores);
+            }
+        } catch (Exception e) {
+            logger.error("Falha ao preencher a sequência das mensagens: {}", e.getMessage());
+        }
+    }
+
+    public long proximaPrivada(Long usuarioA, Long usuarioB) {
+        String conversaKey = MensagemPrivada.chaveConversa(usuarioA, usuarioB);
+        return proxima(ChatLogService.chavePrivada(usuarioA, usuarioB), () -> mensagemPrivadaRepository.findMaiorSequencia(conversaKey));
+    }
+
+    public long proximaGrupo(Long projetoId) {
+        return proxima(ChatLogService.chaveGrupo(projetoId), () -> mensagemGrupoRepository.findMaiorSequencia(projetoId));
+    }
+
+    /**
+     * Última sequência já atribuída no grupo (0 se não houver mensagens), sem consumir um número.
+     */
+    public long atualGrupo(Long projetoId) {
+        return contador(ChatLogService.chaveGrupo(projetoId), () -> mensagemGrupoRepository.findMaiorSequencia(projetoId)).get();
+    }
+
+    private long proxima(String chave, Supplier<Long> maiorGravada) {
+        return contador(chave, maiorGravada).incrementAndGet();
+    }
+
+    private AtomicLong contador(String chave, Supplier<Long> maiorGravada) {
+        AtomicLong ultima = ultimas.getIfPresent(chave);
+        if (ultima == null) {
+            // Pendentes antes do banco: uma mensagem descarregada entre as duas leituras aparece na segunda
+            Long pendente = chatLogService.maiorSequenciaPendente(chave);
+            Long gravada = maiorGravada.get();
+            long maior = Math.max(pendente != null ? pendente : 0, gravada != null ? gravada : 0);
+            ultima = ultimas.get(chave, k -> new AtomicLong(maior));
+        }
+        return ultima;
+    }
+}
@@ -0,0 +1,180 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.Repository.PostagemRepository;
+import com.SenaiCommunity.BackEnd.Service.Util.AposCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Ranking das postagens "em alta", mantido em memória.
+ *
+ * Cada interação soma um peso que decai exponencialmente com a idade (meia-vida configurável).
+ * O score é guardado em escala logarítmica relativa a uma época fixa: ln(Σ peso · 2^((t - época) / meiaVida)).
+ * Assim o decaimento não altera a ordem entre as postagens e nenhum score precisa ser recalculado
+ * com o passar do tempo; cada evento só atualiza a própria postagem.
+ * O conjunto é limitado às {@code capacidade} melhores postagens; a pior é descartada ao exceder.
+ *
+ * Uma remoção (descurtida, comentário excluído) nunca retira mais do que a contribuição ainda presente:
+ * com o momento do evento original conhecido, retira o peso daquele momento; sem ele, retira a fração
+ * proporcional dos pontos. A postagem só sai do ranking quando não sobra nenhum ponto.
+ * Chamadas dentro de uma transação só alteram o ranking depois do commit.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    public static final double PESO_CURTIDA = 1.0;
+    public static final double PESO_COMENTARIO = 2.0;
+
+    private static final LocalDateTime EPOCA = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Value("${trending.meia-vida-horas:12}")
+    private double meiaVidaHoras;
+
+    @Value("${trending.capacidade:500}")
+    private int capacidade;
+
+    @Autowired
+    private PostagemRepository postagemRepository;
+
+    private final Map<Long, Pontuacao> scores = new HashMap<>();
+    private final TreeSet<Entrada> ranking = new TreeSet<>(
+            Comparator.comparingDouble(Entrada::score).reversed().thenComparing(Entrada::postagemId, Comparator.reverseOrder()));
+
+    /**
+     * Carga inicial a partir das postagens mais recentes e dos seus contadores desnormalizados
+     * (varredura pelo índice de data, sem agregação).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarRecentes() {
+        try {
+            List<Object[]> recentes = postagemRepository.findResumoRecentes(PageRequest.of(0, capacidade));
+            for (Object[] linha : recentes) {
+                double pontos = ((Number) linha[2]).intValue() * PESO_CURTIDA
+                        + ((Number) linha[3]).intValue() * PESO_COMENTARIO;
+                // Sem o histórico dos eventos, todos os pontos contam como se fossem do momento da postagem
+                registrar((Long) linha[0], pontos, (LocalDateTime) linha[1]);
+            }
+            logger.info("Ranking de postagens em alta iniciado com {} postagens", recentes.size());
+        } catch (Exception e) {
+            logger.error("Falha ao carregar o ranking de postagens em alta: {}", e.getMessage());
+        }
+    }
+
+    public void registrarCurtida(Long postagemId, int delta) {
+        // A curtida não guarda quando foi feita: a descurtida retira a fração proporcional
+        LocalDateTime momento = delta > 0 ? LocalDateTime.now() : null;
+        AposCommit.executar(() -> registrar(postagemId, delta * PESO_CURTIDA, momento));
+    }
+
+    public void registrarComentario(Long postagemId, int delta) {
+        LocalDateTime momento = LocalDateTime.now();
+        AposCommit.executar(() -> registrar(postagemId, delta * PESO_COMENTARIO, momento));
+    }
+
+    /**
+     * Remove comentários excluídos (o comentário e as respostas que saíram com ele),
+     * cada um com o peso do momento em que foi criado.
+     */
+    public void removerComentarios(Long postagemId, List<LocalDateTime> criadosEm) {
+        AposCommit.executar(() -> criadosEm.forEach(criadoEm -> registrar(postagemId, -PESO_COMENTARIO, criadoEm)));
+    }
+
+    public void remover(Long postagemId) {
+        AposCommit.executar(() -> retirar(postagemId));
+    }
+
+    private synchronized void retirar(Long postagemId) {
+        Pontuacao atual = scores.remove(postagemId);
+        if (atual != null) {
+            ranking.remove(new Entrada(atual.score(), postagemId));
+        }
+    }
+
+    /**
+     * IDs das {@code limite} postagens com maior score, em ordem decrescente.
+     */
+    public synchronized List<Long> topIds(int limite) {
+        List<Long> ids = new ArrayList<>(Math.min(limite, ranking.size()));
+        Iterator<Entrada> it = ranking.iterator();
+        while (it.hasNext() && ids.size() < limite) {
+            ids.add(it.next().postagemId());
+        }
+        return ids;
+    }
+
+    private synchronized void registrar(Long postagemId, double pontos, LocalDateTime momento) {
+        if (postagemId == null || pontos == 0) return;
+
+        Pontuacao atual = scores.get(postagemId);
+        Pontuacao nova;
+
+        if (pontos > 0) {
+            double logPeso = Math.log(pontos) + expoente(momento);
+            nova = atual == null
+                    ? new Pontuacao(logPeso, pontos)
+                    : new Pontuacao(somarLog(atual.score(), logPeso), atual.pontos() + pontos);
+        } else {
+            // Descurtida/exclusão: some do ranking só quando não sobra nenhum ponto
+            if (atual == null) return;
+            double restantes = atual.pontos() + pontos;
+            if (restantes <= 0) {
+                retirar(postagemId);
+                return;
+            }
+            // Fração do score a retirar: a do evento original (se o momento é conhecido) ou a proporcional,
+            // limitada à proporcional para nunca retirar mais do que ainda está presente
+            double proporcional = -pontos / atual.pontos();
+            double fracao = proporcional;
+            if (momento != null) {
+                fracao = Math.min(proporcional, Math.exp(Math.log(-pontos) + expoente(momento) - atual.score()));
+            }
+            nova = new Pontuacao(atual.score() + Math.log1p(-fracao), restantes);
+        }
+
+        if (atual != null) {
+            ranking.remove(new Entrada(atual.score(), postagemId));
+        }
+        scores.put(postagemId, nova);
+        ranking.add(new Entrada(nova.score(), postagemId));
+
+        while (ranking.size() > capacidade) {
+            Entrada pior = ranking.pollLast();
+            scores.remove(pior.postagemId());
+        }
+    }
+
+    // ln(2^((t - época) / meiaVida)): cresce linearmente com o tempo, sem risco de overflow
+    private double expoente(LocalDateTime momento) {
+        double horas = Duration.between(EPOCA, momento).toSeconds() / 3600.0;
+        return horas / meiaVidaHoras * Math.log(2);
+    }
+
+    // ln(e^a + e^b) sem sair da escala logarítmica
+    private static double somarLog(double a, double b) {
+        double maior = Math.max(a, b);
+        return maior + Math.log1p(Math.exp(Math.min(a, b) - maior));
+    }
+
+    // score em escala logarítmica e pontos (sem decaimento) ainda presentes
+    private record Pontuacao(double score, double pontos) {}
+
+    private record Entrada(double score, Long postagemId) {}
+}
@@ -1,41 +1,141 @@
 package com.SenaiCommunity.BackEnd.Service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
+/**
+ * Registro de presença por ID de usuário, com contagem de sessões.
+ *
+ * Cada sessão WebSocket (aba, dispositivo) é registrada com o horário do último sinal recebido
+ * (mensagem ou heartbeat STOMP). O usuário só fica offline quando a última sessão sai, seja pelo
+ * evento de desconexão, seja por expirar o TTL sem sinal (desconexões que nunca chegaram).
+ * Os métodos que alteram o estado informam se houve transição real online/offline.
+ */
 @Service
 public class UserStatusService {
 
-    // Usamos um Set thread-safe para armazenar os e-mails dos usuários online.
-    private final Set<String> onlineUsers = ConcurrentHashMap.newKeySet();
+    // Estado imutável por usuário: cada alteração troca a instância dentro do compute do mapa
+    private record Presenca(String email, Map<String, Long> sessoes) {
+        Presenca comSessao(String sessionId, long agora) {
+            Map<String, Long> novas = new HashMap<>(sessoes);
+            novas.put(sessionId, agora);
+            return new Presenca(email, Map.copyOf(novas));
+        }
+
+        Presenca semSessao(String sessionId) {
+            Map<String, Long> novas = new HashMap<>(sessoes);
+            novas.remove(sessionId);
+            return novas.isEmpty() ? null : new Presenca(email, Map.copyOf(novas));
+        }
+    }
+
+    // Marca de "último sinal" que nunca vence o TTL nem é atualizada por sinal()
+    private static final long SEM_HEARTBEAT = Long.MAX_VALUE;
+
+    @Value("${presenca.ttl-ms:90000}")
+    private long ttlMs;
+
+    private final ConcurrentHashMap<Long, Presenca> presencas = new ConcurrentHashMap<>();
 
     /**
-     * Adiciona um usuário à lista de online.
+     * Registra uma sessão do usuário. Retorna true se ele estava offline (transição para online).
+     * Sessões sem heartbeat do cliente não expiram por TTL: dependem só do evento de desconexão.
      */
-    public void addUser(String userEmail) {
-        onlineUsers.add(userEmail);
+    public boolean conectar(Long usuarioId, String email, String sessionId, boolean comHeartbeat) {
+        boolean[] ficouOnline = {false};
+        long agora = comHeartbeat ? System.currentTimeMillis() : SEM_HEARTBEAT;
+        presencas.compute(usuarioId, (id, atual) -> {
+            if (atual == null) {
+                ficouOnline[0] = true;
+                return new Presenca(email, Map.of(sessionId, agora));
+            }
+            return atual.comSessao(sessionId, agora);
+        });
+        return ficouOnline[0];
     }
 
     /**
-     * Remove um usuário da lista de online.
+     * Remove uma sessão do usuário. Retorna true se era a última (transição para offline).
+     * Desconexões repetidas da mesma sessão são ignoradas.
      */
-    public void removeUser(String userEmail) {
-        onlineUsers.remove(userEmail);
+    public boolean desconectar(Long usuarioId, String sessionId) {
+        boolean[] ficouOffline = {false};
+        presencas.computeIfPresent(usuarioId, (id, atual) -> {
+            if (!atual.sessoes().containsKey(sessionId)) return atual;
+            Presenca restante = atual.semSessao(sessionId);
+            ficouOffline[0] = restante == null;
+            return restante;
+        });
+        return ficouOffline[0];
+    }
+
+    /**
+     * Atualiza o último sinal da sessão (chamado a cada mensagem recebida, inclusive heartbeats).
+     * Sessões desconhecidas são ignoradas: quem registra sessões é o evento de conexão.
+     */
+    public void sinal(Long usuarioId, String sessionId) {
+        Presenca atual = presencas.get(usuarioId);
+        if (atual == null || !atual.sessoes().containsKey(sessionId)) return;
+
+        long agora = System.currentTimeMillis();
+        // Evita trocar a instância a cada heartbeat: só atualiza se o último sinal tiver mais de 1/3 do TTL
+        // (sessões SEM_HEARTBEAT dão diferença negativa e nunca são atualizadas)
+        if (agora - atual.sessoes().get(sessionId) < ttlMs / 3) return;
+
+        presencas.computeIfPresent(usuarioId, (id, p) ->
+                p.sessoes().containsKey(sessionId) ? p.comSessao(sessionId, agora) : p);
+    }
+
+    /**
+     * Remove as sessões sem sinal há mais que o TTL e informa cada usuário que ficou offline.
+     */
+    public void expirarSessoes(BiConsumer<Long, String> aoFicarOffline) {
+        long limite = System.currentTimeMillis() - ttlMs;
+        for (Long usuarioId : presencas.keySet()) {
+            String[] emailOffline = {null};
+            presencas.computeIfPresent(usuarioId, (id, atual) -> {
+                Map<String, Long> vivas = atual.sessoes().entrySet().stream()
+                        .filter(e -> e.getValue() >= limite)
+                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                if (vivas.size() == atual.sessoes().size()) return atual;
+                if (vivas.isEmpty()) {
+                    emailOffline[0] = atual.email();
+                    return null;
+                }
+                return new Presenca(atual.email(), Map.copyOf(vivas));
+            });
+            if (emailOffline[0] != null) {
+                aoFicarOffline.accept(usuarioId, emailOffline[0]);
+            }
+        }
     }
 
     /**
      * Verifica se um usuário específico está online.
      */
-    public boolean isOnline(String userEmail) {
-        return onlineUsers.contains(userEmail);
+    public boolean isOnline(Long usuarioId) {
+        return usuarioId != null && presencas.containsKey(usuarioId);
+    }
+
+    /**
+     * E-mail do usuário se estiver online, ou null.
+     */
+    public String emailSeOnline(Long usuarioId) {
+        Presenca presenca = usuarioId != null ? presencas.get(usuarioId) : null;
+        return presenca != null ? presenca.email() : null;
     }
 
     /**
-     * Retorna o conjunto de todos os usuários online.
+     * Retorna o conjunto de todos os usuários online (e-mails).
      */
     public Set<String> getOnlineUsers() {
-        return onlineUsers;
+        return presencas.values().stream().map(Presenca::email).collect(Collectors.toSet());
     }
-}
\ No newline at end of file
+}
@@ -22,6 +22,14 @@ public class UsuarioDetailsImpl implements UserDetails {
         this.authorities = authorities;
     }
 
+    // Usado quando o usuário é montado a partir das claims do JWT (sem senha)
+    public UsuarioDetailsImpl(Long id, String email, Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.email = email;
+        this.senha = null;
+        this.authorities = authorities;
+    }
+
     public Long getId() {
         return id;
     }
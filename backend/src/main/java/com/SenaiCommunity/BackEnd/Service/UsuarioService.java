@@ -265,7 +265,7 @@ public class UsuarioService {
                 usuario.getEmail(),
                 urlFoto,
                 status,
-                userStatusService.isOnline(usuario.getEmail())
+                userStatusService.isOnline(usuario.getId())
         );
     }
 
@@ -285,7 +285,7 @@ public class UsuarioService {
                 usuario.getEmail(),
                 urlFoto,
                 status,
-                userStatusService.isOnline(usuario.getEmail())
+                userStatusService.isOnline(usuario.getId())
         );
     }
 
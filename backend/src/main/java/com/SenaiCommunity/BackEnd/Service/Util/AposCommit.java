@@ -0,0 +1,31 @@
+package com.SenaiCommunity.BackEnd.Service.Util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Adia uma ação em memória (cache, contador, push) para depois do commit da transação atual,
+ * para que ela nunca fique à frente do que está gravado no banco.
+ */
+public final class AposCommit {
+
+    private AposCommit() {
+    }
+
+    /**
+     * Executa após o commit; sem transação ativa, executa imediatamente.
+     * Se a transação sofrer rollback, a ação é descartada.
+     */
+    public static void executar(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
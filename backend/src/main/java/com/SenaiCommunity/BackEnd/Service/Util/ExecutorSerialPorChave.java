@@ -0,0 +1,168 @@
+package com.SenaiCommunity.BackEnd.Service.Util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor que roda em série as tarefas de uma mesma chave (conversa, grupo) e em paralelo as de chaves
+ * diferentes, sobre um pool fixo de threads.
+ *
+ * Cada chave tem uma fila limitada; enquanto ela existe no mapa há exatamente um "drenador" agendado
+ * ou rodando para ela, e é ele quem remove a fila ao encontrá-la vazia. O drenador executa no máximo
+ * {@code LOTE} tarefas por vez e então volta para o fim do pool, para que uma conversa movimentada
+ * não monopolize uma thread. O SecurityContext de quem enviou a tarefa é propagado para a execução.
+ */
+public class ExecutorSerialPorChave {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorSerialPorChave.class);
+
+    private static final int LOTE = 16;
+
+    private record Tarefa(Runnable acao, long enfileiradaEm) {}
+
+    public record Metricas(long aceitas, long concluidas, long rejeitadas, long falhas,
+                           int chavesAtivas, long pendentes, double esperaMediaMs, double esperaMaximaMs) {}
+
+    private final ThreadPoolExecutor pool;
+    private final int capacidadePorChave;
+    private final ConcurrentHashMap<Object, ArrayDeque<Tarefa>> filas = new ConcurrentHashMap<>();
+
+    private final LongAdder aceitas = new LongAdder();
+    private final LongAdder concluidas = new LongAdder();
+    private final LongAdder rejeitadas = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+
+    public ExecutorSerialPorChave(String nome, int threads, int capacidadePorChave) {
+        this.capacidadePorChave = capacidadePorChave;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), criarThreads(nome));
+    }
+
+    /**
+     * Enfileira a ação na chave. Retorna false se a fila da chave estiver cheia (ou o executor encerrado);
+     * nesse caso a ação não será executada.
+     */
+    public boolean executar(Object chave, Runnable acao) {
+        Tarefa tarefa = new Tarefa(new DelegatingSecurityContextRunnable(acao), System.nanoTime());
+        boolean[] aceita = {true};
+        boolean[] agendar = {false};
+
+        // As filas só são alteradas dentro do compute do mapa, que trava apenas a chave
+        filas.compute(chave, (k, fila) -> {
+            if (fila == null) {
+                fila = new ArrayDeque<>();
+                agendar[0] = true;
+            } else if (fila.size() >= capacidadePorChave) {
+                aceita[0] = false;
+                return fila;
+            }
+            fila.addLast(tarefa);
+            return fila;
+        });
+
+        if (!aceita[0]) {
+            rejeitadas.increment();
+            logger.warn("Fila da chave {} cheia ({} tarefas); tarefa rejeitada", chave, capacidadePorChave);
+            return false;
+        }
+
+        if (agendar[0]) {
+            try {
+                pool.execute(() -> drenar(chave));
+            } catch (RejectedExecutionException e) {
+                filas.remove(chave);
+                rejeitadas.increment();
+                return false;
+            }
+        }
+        aceitas.increment();
+        return true;
+    }
+
+    public Metricas metricas() {
+        long concluidasAgora = concluidas.sum();
+        long esperaMedia = concluidasAgora > 0 ? esperaTotalNanos.sum() / concluidasAgora : 0;
+        return new Metricas(
+                aceitas.sum(),
+                concluidasAgora,
+                rejeitadas.sum(),
+                falhas.sum(),
+                filas.size(),
+                Math.max(aceitas.sum() - concluidasAgora, 0),
+                esperaMedia / 1_000_000.0,
+                esperaMaximaNanos.get() / 1_000_000.0
+        );
+    }
+
+    /**
+     * Para de aceitar tarefas e aguarda as já enfileiradas terminarem (até 10s).
+     */
+    public void encerrar() throws InterruptedException {
+        pool.shutdown();
+        if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Executor encerrado com {} tarefas pendentes", metricas().pendentes());
+            pool.shutdownNow();
+        }
+    }
+
+    private void drenar(Object chave) {
+        for (int i = 0; i < LOTE; i++) {
+            Tarefa tarefa = proxima(chave);
+            if (tarefa == null) return; // fila removida: a próxima tarefa da chave agenda um novo drenador
+            rodar(chave, tarefa);
+        }
+        // Cede a vez às outras chaves; a fila continua no mapa, então ninguém mais agenda esta chave
+        try {
+            pool.execute(() -> drenar(chave));
+        } catch (RejectedExecutionException e) {
+            // Executor encerrando: termina a fila nesta thread para não perder mensagens já aceitas
+            drenar(chave);
+        }
+    }
+
+    private Tarefa proxima(Object chave) {
+        Tarefa[] proxima = {null};
+        filas.computeIfPresent(chave, (k, fila) -> {
+            proxima[0] = fila.pollFirst();
+            return proxima[0] == null ? null : fila;
+        });
+        return proxima[0];
+    }
+
+    private void rodar(Object chave, Tarefa tarefa) {
+        long espera = System.nanoTime() - tarefa.enfileiradaEm();
+        esperaTotalNanos.add(espera);
+        esperaMaximaNanos.accumulateAndGet(espera, Math::max);
+        try {
+            tarefa.acao().run();
+        } catch (Exception e) {
+            falhas.increment();
+            logger.error("Falha ao executar tarefa da chave {}: {}", chave, e.getMessage(), e);
+        } finally {
+            concluidas.increment();
+        }
+    }
+
+    private static ThreadFactory criarThreads(String nome) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, nome + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.SenaiCommunity.BackEnd.Service.Util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Janela de deduplicação de envios repetidos (retentativas do cliente com a mesma chave).
+ *
+ * Guarda o resultado de cada envio por um tempo limitado e com tamanho máximo. Um envio com chave já vista
+ * devolve o resultado original sem executar a ação de novo; envios simultâneos com a mesma chave esperam o
+ * primeiro terminar. Cada chave guarda um futuro: só a reserva da chave é atômica, a ação roda fora do lock
+ * do mapa (sem travar outras chaves). Se a ação lançar exceção a chave é liberada, quem esperava recebe a
+ * mesma exceção e a próxima tentativa executa normalmente.
+ *
+ * Fora da janela (ou depois de reiniciar), quem chama pode informar como achar o resultado já gravado;
+ * a garantia final contra duplicatas fica com o índice único no banco.
+ */
+public class JanelaDeduplicacao<T> {
+
+    public record Resultado<T>(T valor, boolean repetido) {}
+
+    private final Cache<String, CompletableFuture<T>> resultados;
+
+    public JanelaDeduplicacao(Duration janela, long maximoEntradas) {
+        this.resultados = Caffeine.newBuilder()
+                .expireAfterWrite(janela)
+                .maximumSize(maximoEntradas)
+                .build();
+    }
+
+    /**
+     * Executa a ação uma única vez por chave dentro da janela. Sem chave, apenas executa.
+     *
+     * @param jaGravado consultado antes de executar, quando a chave não está na janela
+     */
+    public Resultado<T> executar(String chave, Supplier<Optional<T>> jaGravado, Supplier<T> acao) {
+        if (chave == null) {
+            return new Resultado<>(acao.get(), false);
+        }
+
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        CompletableFuture<T> existente = resultados.asMap().putIfAbsent(chave, futuro);
+        if (existente != null) {
+            return new Resultado<>(aguardar(existente), true);
+        }
+
+        try {
+            Optional<T> gravado = jaGravado.get();
+            T valor = gravado.isPresent() ? gravado.get() : acao.get();
+            futuro.complete(valor);
+            return new Resultado<>(valor, gravado.isPresent());
+        } catch (RuntimeException | Error e) {
+            resultados.asMap().remove(chave, futuro);
+            futuro.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static <T> T aguardar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Chave enviada pelo cliente pronta para uso: null se ausente/em branco; rejeita chaves longas demais.
+     */
+    public static String validarIdCliente(String idCliente, int tamanhoMaximo) {
+        if (idCliente == null || idCliente.isBlank()) {
+            return null;
+        }
+        String limpo = idCliente.strip();
+        if (limpo.length() > tamanhoMaximo) {
+            throw new IllegalArgumentException("Identificador da mensagem muito longo (máximo " + tamanhoMaximo + " caracteres).");
+        }
+        return limpo;
+    }
+}
@@ -0,0 +1,60 @@
+package com.SenaiCommunity.BackEnd.Service.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Últimos itens de uma sequência numerada (mensagens de uma conversa), limitados à capacidade.
+ * Guarda também a primeira sequência coberta: a partir dela todos os itens existentes estão na janela,
+ * então uma consulta "depois de N" só é respondida daqui se N + 1 ainda estiver coberto.
+ */
+public class JanelaRecente<T> {
+
+    private final int capacidade;
+    private final TreeMap<Long, T> itens = new TreeMap<>();
+    private long inicio;
+
+    public JanelaRecente(int capacidade, long inicio) {
+        this.capacidade = capacidade;
+        this.inicio = inicio;
+    }
+
+    public synchronized void adicionar(long sequencia, T item) {
+        itens.put(sequencia, item);
+        while (itens.size() > capacidade) {
+            inicio = itens.pollFirstEntry().getKey() + 1;
+        }
+    }
+
+    // Edição: só substitui se o item ainda estiver na janela
+    public synchronized void substituir(long sequencia, T item) {
+        itens.computeIfPresent(sequencia, (s, atual) -> item);
+    }
+
+    // Exclusão: a faixa continua coberta (o item simplesmente não existe mais)
+    public synchronized void remover(long sequencia) {
+        itens.remove(sequencia);
+    }
+
+    public synchronized void paraCada(Consumer<T> acao) {
+        itens.values().forEach(acao);
+    }
+
+    /**
+     * Itens com sequência maior que a informada, ou vazio se parte deles já saiu da janela.
+     */
+    public synchronized Optional<List<T>> depoisDe(long sequencia, int limite) {
+        if (sequencia + 1 < inicio) {
+            return Optional.empty();
+        }
+        List<T> resultado = new ArrayList<>();
+        for (T item : itens.tailMap(sequencia, false).values()) {
+            if (resultado.size() == limite) break;
+            resultado.add(item);
+        }
+        return Optional.of(resultado);
+    }
+}
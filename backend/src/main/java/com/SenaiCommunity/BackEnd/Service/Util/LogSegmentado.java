@@ -0,0 +1,207 @@
+package com.SenaiCommunity.BackEnd.Service.Util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log append-only em arquivos de segmento mapeados em memória.
+ *
+ * Layout de cada segmento: cabeçalho de 16 bytes (int MAGICO, int reservado, long checkpoint) seguido
+ * de registros [int tamanho][int crc32][dados]. O checkpoint é o offset do primeiro registro ainda não
+ * confirmado; tamanho 0 (ou CRC inválido, no caso de escrita interrompida) marca o fim dos dados.
+ * Os registros são confirmados estritamente em ordem: segmentos inteiramente confirmados são apagados.
+ *
+ * A escrita no mapeamento sobrevive à queda do processo (fica no page cache do sistema); para sobreviver
+ * à queda da máquina é preciso {@link #sincronizar()}, que força os segmentos com escrita pendente para o disco.
+ */
+public class LogSegmentado {
+
+    private static final int MAGICO = 0x43484154; // "CHAT"
+    private static final int CABECALHO = 16;
+    private static final int OFFSET_CHECKPOINT = 8;
+    private static final int CABECALHO_REGISTRO = 8;
+
+    public record Posicao(long segmento, int fim) {}
+
+    public record Entrada(Posicao posicao, byte[] dados) {}
+
+    private static final class Segmento {
+        final Path arquivo;
+        final MappedByteBuffer buffer;
+        int fimEscrita;
+        boolean sujo;
+
+        Segmento(Path arquivo, MappedByteBuffer buffer, int fimEscrita) {
+            this.arquivo = arquivo;
+            this.buffer = buffer;
+            this.fimEscrita = fimEscrita;
+        }
+    }
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+    private final TreeMap<Long, Segmento> segmentos = new TreeMap<>();
+    private Segmento ativo;
+    private long numeroAtivo;
+
+    public LogSegmentado(Path diretorio, int tamanhoSegmento) {
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+    }
+
+    /**
+     * Abre os segmentos existentes e devolve, em ordem, os registros ainda não confirmados.
+     * As novas escritas vão sempre para um segmento novo (o final dos antigos pode estar truncado).
+     */
+    public synchronized List<Entrada> abrir() {
+        List<Entrada> naoConfirmadas = new ArrayList<>();
+        try {
+            Files.createDirectories(diretorio);
+            List<Path> arquivos;
+            try (Stream<Path> lista = Files.list(diretorio)) {
+                arquivos = lista.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted().toList();
+            }
+
+            for (Path arquivo : arquivos) {
+                long numero = Long.parseLong(arquivo.getFileName().toString().replace(".seg", ""));
+                MappedByteBuffer buffer = mapear(arquivo);
+                if (buffer.getInt(0) != MAGICO) continue; // arquivo criado mas nunca inicializado
+
+                int posicao = (int) buffer.getLong(OFFSET_CHECKPOINT);
+                while (true) {
+                    byte[] dados = ler(buffer, posicao);
+                    if (dados == null) break;
+                    posicao += CABECALHO_REGISTRO + dados.length;
+                    naoConfirmadas.add(new Entrada(new Posicao(numero, posicao), dados));
+                }
+
+                segmentos.put(numero, new Segmento(arquivo, buffer, posicao));
+                numeroAtivo = Math.max(numeroAtivo, numero);
+            }
+
+            // Segmentos sem pendências já podem sair
+            Iterator<Map.Entry<Long, Segmento>> it = segmentos.entrySet().iterator();
+            while (it.hasNext()) {
+                Segmento segmento = it.next().getValue();
+                if (segmento.buffer.getLong(OFFSET_CHECKPOINT) >= segmento.fimEscrita) {
+                    Files.deleteIfExists(segmento.arquivo);
+                    it.remove();
+                }
+            }
+
+            novoSegmento();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o log em " + diretorio, e);
+        }
+        return naoConfirmadas;
+    }
+
+    /**
+     * Grava o registro no fim do log e devolve a posição logo após ele (usada em {@link #confirmar}).
+     */
+    public synchronized Posicao anexar(byte[] dados) {
+        int necessario = CABECALHO_REGISTRO + dados.length;
+        if (necessario > tamanhoSegmento - CABECALHO) {
+            throw new IllegalArgumentException("Registro maior que o segmento do log (" + dados.length + " bytes)");
+        }
+        if (ativo.fimEscrita + necessario > tamanhoSegmento) {
+            novoSegmento();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(dados);
+
+        int inicio = ativo.fimEscrita;
+        // Dados e CRC antes do tamanho: um registro só "existe" depois de completo
+        ativo.buffer.putInt(inicio + 4, (int) crc.getValue());
+        ativo.buffer.put(inicio + CABECALHO_REGISTRO, dados);
+        ativo.buffer.putInt(inicio, dados.length);
+        ativo.fimEscrita = inicio + necessario;
+        ativo.sujo = true;
+        return new Posicao(numeroAtivo, ativo.fimEscrita);
+    }
+
+    /**
+     * Força para o disco os segmentos com escrita desde a última sincronização.
+     */
+    public synchronized void sincronizar() {
+        for (Segmento segmento : segmentos.values()) {
+            if (segmento.sujo) {
+                segmento.buffer.force();
+                segmento.sujo = false;
+            }
+        }
+    }
+
+    /**
+     * Marca como confirmados todos os registros até a posição (inclusive) e apaga os segmentos encerrados.
+     */
+    public synchronized void confirmar(Posicao ate) {
+        try {
+            Iterator<Map.Entry<Long, Segmento>> it = segmentos.headMap(ate.segmento(), true).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Segmento> e = it.next();
+                Segmento segmento = e.getValue();
+                boolean encerrado = e.getKey() < ate.segmento()
+                        || (segmento != ativo && ate.fim() >= segmento.fimEscrita);
+                if (encerrado) {
+                    Files.deleteIfExists(segmento.arquivo);
+                    it.remove();
+                } else {
+                    segmento.buffer.putLong(OFFSET_CHECKPOINT, ate.fim());
+                    segmento.sujo = true;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível apagar segmento do log", e);
+        }
+    }
+
+    private void novoSegmento() {
+        numeroAtivo++;
+        Path arquivo = diretorio.resolve(String.format("%020d.seg", numeroAtivo));
+        try {
+            MappedByteBuffer buffer = mapear(arquivo);
+            buffer.putLong(OFFSET_CHECKPOINT, CABECALHO);
+            buffer.putInt(0, MAGICO);
+            ativo = new Segmento(arquivo, buffer, CABECALHO);
+            ativo.sujo = true;
+            segmentos.put(numeroAtivo, ativo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar segmento do log", e);
+        }
+    }
+
+    private MappedByteBuffer mapear(Path arquivo) throws IOException {
+        // O mapeamento continua válido depois que o canal é fechado
+        try (FileChannel canal = FileChannel.open(arquivo,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanhoSegmento);
+        }
+    }
+
+    // Registro na posição, ou null no fim dos dados / registro incompleto
+    private byte[] ler(MappedByteBuffer buffer, int posicao) {
+        if (posicao + CABECALHO_REGISTRO > buffer.capacity()) return null;
+        int tamanho = buffer.getInt(posicao);
+        if (tamanho <= 0 || posicao + CABECALHO_REGISTRO + tamanho > buffer.capacity()) return null;
+
+        byte[] dados = new byte[tamanho];
+        buffer.get(posicao + CABECALHO_REGISTRO, dados);
+        CRC32 crc = new CRC32();
+        crc.update(dados);
+        return (int) crc.getValue() == buffer.getInt(posicao + 4) ? dados : null;
+    }
+}
@@ -0,0 +1,137 @@
+package com.SenaiCommunity.BackEnd.Service.Util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Conjunto de IDs (long primitivo) com endereçamento aberto e sondagem linear.
+ * Evita o boxing de Long e um objeto de nó por elemento, como acontece no HashSet<Long>.
+ * Não é thread-safe: para compartilhar entre threads, publique instâncias já montadas e não as altere.
+ */
+public class LongHashSet {
+
+    private static final long VAZIO = 0L;
+    private static final float FATOR_CARGA = 0.5f;
+
+    private long[] chaves;
+    private int tamanho;
+    private boolean contemZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int capacidadeEsperada) {
+        int capacidade = Integer.highestOneBit(Math.max(4, (int) (capacidadeEsperada / FATOR_CARGA)) - 1) << 1;
+        this.chaves = new long[capacidade];
+    }
+
+    public static LongHashSet of(Collection<Long> ids) {
+        LongHashSet set = new LongHashSet(ids.size());
+        for (Long id : ids) {
+            if (id != null) set.add(id);
+        }
+        return set;
+    }
+
+    public boolean add(long chave) {
+        if (chave == VAZIO) {
+            boolean novo = !contemZero;
+            if (novo) { contemZero = true; tamanho++; }
+            return novo;
+        }
+        if ((tamanho + 1) > chaves.length * FATOR_CARGA) {
+            redimensionar(chaves.length << 1);
+        }
+        int i = indice(chave, chaves.length);
+        while (chaves[i] != VAZIO) {
+            if (chaves[i] == chave) return false;
+            i = (i + 1) & (chaves.length - 1);
+        }
+        chaves[i] = chave;
+        tamanho++;
+        return true;
+    }
+
+    public boolean contains(long chave) {
+        if (chave == VAZIO) return contemZero;
+        int i = indice(chave, chaves.length);
+        while (chaves[i] != VAZIO) {
+            if (chaves[i] == chave) return true;
+            i = (i + 1) & (chaves.length - 1);
+        }
+        return false;
+    }
+
+    public boolean remove(long chave) {
+        if (chave == VAZIO) {
+            boolean existia = contemZero;
+            if (existia) { contemZero = false; tamanho--; }
+            return existia;
+        }
+        int mascara = chaves.length - 1;
+        int i = indice(chave, chaves.length);
+        while (chaves[i] != VAZIO) {
+            if (chaves[i] == chave) {
+                // Remoção com deslocamento para trás: mantém as cadeias de sondagem sem "lápides"
+                int livre = i;
+                int j = (i + 1) & mascara;
+                while (chaves[j] != VAZIO) {
+                    int ideal = indice(chaves[j], chaves.length);
+                    if (((j - ideal) & mascara) >= ((j - livre) & mascara)) {
+                        chaves[livre] = chaves[j];
+                        livre = j;
+                    }
+                    j = (j + 1) & mascara;
+                }
+                chaves[livre] = VAZIO;
+                tamanho--;
+                return true;
+            }
+            i = (i + 1) & mascara;
+        }
+        return false;
+    }
+
+    public int size() {
+        return tamanho;
+    }
+
+    public boolean isEmpty() {
+        return tamanho == 0;
+    }
+
+    public long[] toArray() {
+        long[] resultado = new long[tamanho];
+        int k = 0;
+        if (contemZero) resultado[k++] = VAZIO;
+        for (long chave : chaves) {
+            if (chave != VAZIO) resultado[k++] = chave;
+        }
+        return resultado;
+    }
+
+    private void redimensionar(int novaCapacidade) {
+        long[] antigas = chaves;
+        chaves = new long[novaCapacidade];
+        for (long chave : antigas) {
+            if (chave != VAZIO) {
+                int i = indice(chave, novaCapacidade);
+                while (chaves[i] != VAZIO) {
+                    i = (i + 1) & (novaCapacidade - 1);
+                }
+                chaves[i] = chave;
+            }
+        }
+    }
+
+    private static int indice(long chave, int capacidade) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (capacidade - 1);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
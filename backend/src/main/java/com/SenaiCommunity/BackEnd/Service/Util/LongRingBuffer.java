@@ -0,0 +1,81 @@
+package com.SenaiCommunity.BackEnd.Service.Util;
+
+import java.util.Arrays;
+
+/**
+ * Buffer circular de capacidade fixa com IDs (long primitivo).
+ * Ao encher, cada novo elemento sobrescreve o mais antigo. Não guarda o mesmo valor duas vezes.
+ * Thread-safe: os métodos são sincronizados na própria instância.
+ */
+public class LongRingBuffer {
+
+    private final long[] elementos;
+    private int proximo;
+    private int tamanho;
+
+    public LongRingBuffer(int capacidade) {
+        this.elementos = new long[capacidade];
+    }
+
+    /** Adiciona como mais recente; se o valor já estiver presente, mantém a posição atual. */
+    public synchronized boolean add(long valor) {
+        if (posicao(valor) >= 0) return false;
+        elementos[proximo] = valor;
+        proximo = (proximo + 1) % elementos.length;
+        if (tamanho < elementos.length) tamanho++;
+        return true;
+    }
+
+    /** Retira o valor, mantendo a ordem dos demais. */
+    public synchronized boolean remove(long valor) {
+        int i = posicao(valor);
+        if (i < 0) return false;
+        // Desloca os mais recentes uma casa para trás, fechando o buraco
+        for (int j = i; j < tamanho - 1; j++) {
+            elementos[indice(j)] = elementos[indice(j + 1)];
+        }
+        proximo = (proximo - 1 + elementos.length) % elementos.length;
+        tamanho--;
+        return true;
+    }
+
+    /**
+     * Até {@code limite} elementos, do mais recente para o mais antigo,
+     * considerando apenas os menores que {@code antesDe} (use Long.MAX_VALUE para começar do topo).
+     */
+    public synchronized long[] recentes(long antesDe, int limite) {
+        long[] resultado = new long[Math.min(limite, tamanho)];
+        int k = 0;
+        for (int i = 1; i <= tamanho && k < resultado.length; i++) {
+            long valor = elementos[(proximo - i + elementos.length) % elementos.length];
+            if (valor < antesDe) resultado[k++] = valor;
+        }
+        return k == resultado.length ? resultado : Arrays.copyOf(resultado, k);
+    }
+
+    /** O elemento mais antigo ainda presente, ou Long.MAX_VALUE se estiver vazio. */
+    public synchronized long maisAntigo() {
+        if (tamanho == 0) return Long.MAX_VALUE;
+        return elementos[(proximo - tamanho + elementos.length) % elementos.length];
+    }
+
+    // Posição lógica (0 = mais antigo) do valor, ou -1 se não estiver presente
+    private int posicao(long valor) {
+        for (int i = 0; i < tamanho; i++) {
+            if (elementos[indice(i)] == valor) return i;
+        }
+        return -1;
+    }
+
+    private int indice(int posicao) {
+        return (proximo - tamanho + posicao + elementos.length) % elementos.length;
+    }
+
+    public synchronized int size() {
+        return tamanho;
+    }
+
+    public int capacidade() {
+        return elementos.length;
+    }
+}
@@ -7,6 +7,7 @@ public class NormalizacaoUtils {
 
     private static final Pattern ACENTOS_PATTERN = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
 
+    // Para o filtro de profanidade: troca leet speak por letras e descarta tudo o que não for letra
     public static String normalizar(String texto) {
         if (texto == null) {
             return "";
@@ -30,4 +31,13 @@ public class NormalizacaoUtils {
 
         return processado.replaceAll("[^a-z\\s]", "");
     }
-}
\ No newline at end of file
+
+    // Só minúsculas e sem acentos, mantendo números e o resto do texto (usado na busca)
+    public static String semAcentos(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String processado = Normalizer.normalize(texto.toLowerCase(), Normalizer.Form.NFD);
+        return ACENTOS_PATTERN.matcher(processado).replaceAll("");
+    }
+}
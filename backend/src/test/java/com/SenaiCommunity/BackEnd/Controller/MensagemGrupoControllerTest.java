@@ -0,0 +1,82 @@
+package com.SenaiCommunity.BackEnd.Controller;
+
+import com.SenaiCommunity.BackEnd.DTO.MensagemGrupoEntradaDTO;
+import com.SenaiCommunity.BackEnd.DTO.MensagemGrupoSaidaDTO;
+import com.SenaiCommunity.BackEnd.Service.MensagemGrupoService;
+import com.SenaiCommunity.BackEnd.Service.Util.ExecutorSerialPorChave;
+import com.SenaiCommunity.BackEnd.Service.Util.JanelaDeduplicacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.security.Principal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Uma retentativa reconhecida como repetida só confirma ao autor: o tópico do grupo não recebe a mensagem de novo.
+ */
+@ExtendWith(MockitoExtension.class)
+class MensagemGrupoControllerTest {
+
+    private static final Long PROJETO_ID = 7L;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private MensagemGrupoService mensagemGrupoService;
+
+    @Mock
+    private ExecutorSerialPorChave executorConversas;
+
+    @InjectMocks
+    private MensagemGrupoController controller;
+
+    private final Principal principal = () -> "ana@senai.br";
+
+    private final MensagemGrupoEntradaDTO envio = MensagemGrupoEntradaDTO.builder()
+            .conteudo("oi").idMensagemCliente("c-1").build();
+
+    private final MensagemGrupoSaidaDTO original = MensagemGrupoSaidaDTO.builder()
+            .id(99L).sequencia(12L).conteudo("oi").grupoId(PROJETO_ID).idMensagemCliente("c-1").build();
+
+    @BeforeEach
+    void executarNaHora() {
+        when(executorConversas.executar(any(), any())).thenAnswer(invocacao -> {
+            invocacao.<Runnable>getArgument(1).run();
+            return true;
+        });
+    }
+
+    @Test
+    void retentativaRepetidaNaoPublicaDeNovoNoGrupo() {
+        when(mensagemGrupoService.salvarMensagemGrupo(envio, PROJETO_ID, "ana@senai.br"))
+                .thenReturn(new JanelaDeduplicacao.Resultado<>(original, true));
+
+        controller.enviarParaGrupo(PROJETO_ID, envio, principal);
+
+        verify(messagingTemplate).convertAndSendToUser("ana@senai.br", "/queue/usuario", original);
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void primeiroEnvioPublicaNoGrupo() {
+        when(mensagemGrupoService.salvarMensagemGrupo(envio, PROJETO_ID, "ana@senai.br"))
+                .thenReturn(new JanelaDeduplicacao.Resultado<>(original, false));
+
+        controller.enviarParaGrupo(PROJETO_ID, envio, principal);
+
+        verify(messagingTemplate).convertAndSend(eq("/topic/grupo/" + PROJETO_ID), eq((Object) original));
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any(Object.class));
+    }
+}
@@ -0,0 +1,164 @@
+package com.SenaiCommunity.BackEnd.Service;
+
+import com.SenaiCommunity.BackEnd.DTO.MensagemGrupoEntradaDTO;
+import com.SenaiCommunity.BackEnd.DTO.MensagemGrupoSaidaDTO;
+import com.SenaiCommunity.BackEnd.Entity.Aluno;
+import com.SenaiCommunity.BackEnd.Entity.MensagemGrupo;
+import com.SenaiCommunity.BackEnd.Entity.Projeto;
+import com.SenaiCommunity.BackEnd.Repository.ArquivoMidiaRepository;
+import com.SenaiCommunity.BackEnd.Repository.MensagemGrupoRepository;
+import com.SenaiCommunity.BackEnd.Repository.ProjetoMembroRepository;
+import com.SenaiCommunity.BackEnd.Repository.ProjetoRepository;
+import com.SenaiCommunity.BackEnd.Repository.UsuarioRepository;
+import com.SenaiCommunity.BackEnd.Service.Util.JanelaDeduplicacao;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * A página do histórico do grupo tem número fixo de consultas: a da página (com a contagem) e a dos anexos,
+ * qualquer que seja o tamanho da página. Nenhuma consulta por mensagem (autor, projeto, anexos).
+ */
+@ExtendWith(MockitoExtension.class)
+class MensagemGrupoServiceTest {
+
+    private static final Long PROJETO_ID = 7L;
+
+    @Mock
+    private MensagemGrupoRepository mensagemGrupoRepository;
+
+    @Mock
+    private ArquivoMidiaRepository arquivoMidiaRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ProjetoRepository projetoRepository;
+
+    @Mock
+    private ProjetoMembroRepository projetoMembroRepository;
+
+    @Mock
+    private FiltroProfanidadeService filtroProfanidade;
+
+    @Mock
+    private MembrosProjetoService membrosProjetoService;
+
+    @Mock
+    private ChatLogService chatLogService;
+
+    @Mock
+    private SequenciaChatService sequenciaChatService;
+
+    @Mock
+    private MensagensRecentesService mensagensRecentes;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private MensagemGrupoService mensagemGrupoService;
+
+    // Serviço recém-criado: a janela de deduplicação em memória está vazia, como depois de expirar ou reiniciar
+    @Test
+    void retentativaForaDaJanelaDevolveAMensagemOriginalSemGravarDeNovo() {
+        Aluno autor = new Aluno();
+        autor.setId(3L);
+        autor.setEmail("ana@senai.br");
+        autor.setNome("Ana");
+        Projeto projeto = new Projeto();
+        projeto.setId(PROJETO_ID);
+        MensagemGrupo original = MensagemGrupo.builder()
+                .id(99L).sequencia(12L).conteudo("oi").autor(autor).projeto(projeto)
+                .dataEnvio(LocalDateTime.now().minusMinutes(30)).idMensagemCliente("c-1")
+                .build();
+
+        when(usuarioRepository.findByEmail("ana@senai.br")).thenReturn(Optional.of(autor));
+        when(mensagemGrupoRepository.findByAutorIdAndIdMensagemCliente(3L, "c-1")).thenReturn(Optional.of(original));
+
+        MensagemGrupoEntradaDTO retentativa = MensagemGrupoEntradaDTO.builder()
+                .conteudo("oi").idMensagemCliente("c-1").build();
+
+        JanelaDeduplicacao.Resultado<MensagemGrupoSaidaDTO> envio =
+                mensagemGrupoService.salvarMensagemGrupo(retentativa, PROJETO_ID, "ana@senai.br");
+
+        assertTrue(envio.repetido());
+        assertEquals(99L, envio.valor().getId());
+        assertEquals(12L, envio.valor().getSequencia());
+        assertEquals("c-1", envio.valor().getIdMensagemCliente());
+        // Nada gravado, numerado ou publicado de novo
+        verifyNoInteractions(chatLogService, sequenciaChatService, mensagensRecentes, messagingTemplate);
+
+        // Dentro da janela a próxima retentativa nem consulta o banco
+        JanelaDeduplicacao.Resultado<MensagemGrupoSaidaDTO> outra =
+                mensagemGrupoService.salvarMensagemGrupo(retentativa, PROJETO_ID, "ana@senai.br");
+        assertTrue(outra.repetido());
+        assertEquals(99L, outra.valor().getId());
+        verify(mensagemGrupoRepository, times(1)).findByAutorIdAndIdMensagemCliente(3L, "c-1");
+    }
+
+    @Test
+    void paginaDoHistoricoUsaUmaConsultaParaAsMensagensEOutraParaOsAnexos() {
+        LocalDateTime agora = LocalDateTime.now();
+        List<Object[]> linhas = List.of(
+                new Object[]{30L, 3L, "terceira", agora, 1L, "Ana", "ana.png"},
+                new Object[]{20L, 2L, "segunda", agora.minusMinutes(1), 2L, "Bruno", null},
+                new Object[]{10L, 1L, "primeira", agora.minusMinutes(2), 1L, "Ana", "ana.png"});
+        when(mensagemGrupoRepository.findPaginaHistorico(eq(PROJETO_ID), any()))
+                .thenReturn(new PageImpl<>(linhas, PageRequest.of(0, 3), 10));
+        when(arquivoMidiaRepository.findAnexosDeMensagensGrupo(List.of(30L, 20L, 10L))).thenReturn(List.of(
+                new Object[]{30L, "https://cdn/a.png", "image"},
+                new Object[]{30L, "https://cdn/b.mp4", "video"},
+                new Object[]{10L, "https://cdn/c.pdf", "raw"}));
+
+        Page<MensagemGrupoSaidaDTO> pagina = mensagemGrupoService.buscarMensagensPorProjetoPaginado(PROJETO_ID, 0, 3);
+
+        verify(mensagemGrupoRepository, times(1)).findPaginaHistorico(eq(PROJETO_ID), any());
+        verify(arquivoMidiaRepository, times(1)).findAnexosDeMensagensGrupo(any());
+        verifyNoMoreInteractions(mensagemGrupoRepository, arquivoMidiaRepository);
+        verifyNoInteractions(usuarioRepository, projetoRepository, projetoMembroRepository);
+
+        assertEquals(10, pagina.getTotalElements());
+        List<MensagemGrupoSaidaDTO> mensagens = pagina.getContent();
+        assertEquals(List.of(30L, 20L, 10L), mensagens.stream().map(MensagemGrupoSaidaDTO::getId).toList());
+        assertEquals("Bruno", mensagens.get(1).getNomeAutor());
+        assertEquals(PROJETO_ID, mensagens.get(0).getGrupoId());
+        assertEquals(2, mensagens.get(0).getAnexos().size());
+        assertTrue(mensagens.get(1).getAnexos().isEmpty());
+        assertEquals("raw", mensagens.get(2).getAnexos().get(0).getType());
+    }
+
+    @Test
+    void paginaVaziaNaoConsultaAnexos() {
+        when(mensagemGrupoRepository.findPaginaHistorico(eq(PROJETO_ID), any()))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(5, 20), 0));
+
+        Page<MensagemGrupoSaidaDTO> pagina = mensagemGrupoService.buscarMensagensPorProjetoPaginado(PROJETO_ID, 5, 20);
+
+        assertTrue(pagina.getContent().isEmpty());
+        verify(mensagemGrupoRepository, times(1)).findPaginaHistorico(eq(PROJETO_ID), any());
+        verifyNoMoreInteractions(mensagemGrupoRepository);
+        verifyNoInteractions(arquivoMidiaRepository, usuarioRepository, projetoRepository, projetoMembroRepository);
+    }
+}
@@ -96,6 +96,8 @@ document.addEventListener("DOMContentLoaded", () => {
 
             if (oldPostElement) {
                 oldPostElement.replaceWith(newPostElement);
+                // As respostas que estavam abertas são recarregadas (não vêm com a postagem)
+                openReplyContainerIds.forEach(containerId => window.loadReplies(containerId.replace('replies-for-', '')));
             }
         } catch (error) {
             console.error(`Falha ao atualizar post ${postId} no perfil:`, error);
@@ -736,13 +738,18 @@ document.addEventListener("DOMContentLoaded", () => {
         });
     }
 
+    // Postagens do perfil paginadas por cursor (dataCriacao, id) da última recebida
+    const PROFILE_POSTS_PAGE_SIZE = 10;
+    let profilePostsCursor = null;
+    let profilePostsLoading = false;
+
     async function fetchUserPosts(targetUserId) {
         if (!elements.postsContainer) return;
+        profilePostsCursor = null;
         elements.postsContainer.innerHTML = "<div class='loading-spinner' style='margin: 2rem auto; display:block;'></div>";
         try {
-            const response = await axios.get(`${backendUrl}/postagem/usuario/${targetUserId}`);
+            const userPosts = await fetchUserPostsPage(targetUserId);
             elements.postsContainer.innerHTML = "";
-            const userPosts = response.data;
             if (userPosts.length === 0) {
                 elements.postsContainer.innerHTML = `
             <div class='empty-state' style='text-align: center; padding: 3rem;'>
@@ -751,11 +758,7 @@ document.addEventListener("DOMContentLoaded", () => {
             </div>`;
                 return;
             }
-            const sortedPosts = userPosts.sort((a, b) => new Date(b.dataCriacao) - new Date(a.dataCriacao));
-            sortedPosts.forEach((post) => {
-                const postElement = createProfilePostElement(post);
-                elements.postsContainer.appendChild(postElement);
-            });
+            appendUserPosts(targetUserId, userPosts);
         } catch (error) {
             elements.postsContainer.innerHTML = `
         <div class='empty-state' style='text-align: center; padding: 2rem;'>
@@ -765,6 +768,55 @@ document.addEventListener("DOMContentLoaded", () => {
         }
     }
 
+    async function fetchUserPostsPage(targetUserId) {
+        const params = { size: PROFILE_POSTS_PAGE_SIZE };
+        if (profilePostsCursor) {
+            params.cursorData = profilePostsCursor.dataCriacao;
+            params.cursorId = profilePostsCursor.id;
+        }
+        const response = await axios.get(`${backendUrl}/postagem/usuario/${targetUserId}`, { params });
+        return response.data;
+    }
+
+    // A página já vem da mais recente para a mais antiga; a última define o cursor da próxima
+    function appendUserPosts(targetUserId, userPosts) {
+        const oldButton = document.getElementById("profile-posts-load-more");
+        if (oldButton) oldButton.remove();
+
+        userPosts.forEach((post) => {
+            if (document.getElementById(`post-${post.id}`)) return;
+            elements.postsContainer.appendChild(createProfilePostElement(post));
+        });
+
+        if (userPosts.length === 0) return;
+        const last = userPosts[userPosts.length - 1];
+        profilePostsCursor = { dataCriacao: last.dataCriacao, id: last.id };
+
+        if (userPosts.length === PROFILE_POSTS_PAGE_SIZE) {
+            const loadMore = document.createElement("div");
+            loadMore.id = "profile-posts-load-more";
+            loadMore.style.cssText = "text-align: center; padding: 1rem;";
+            loadMore.innerHTML = `<button class="btn btn-secondary">Carregar mais postagens</button>`;
+            loadMore.querySelector("button").addEventListener("click", () => loadMoreUserPosts(targetUserId));
+            elements.postsContainer.appendChild(loadMore);
+        }
+    }
+
+    async function loadMoreUserPosts(targetUserId) {
+        if (profilePostsLoading) return;
+        profilePostsLoading = true;
+        const button = document.querySelector("#profile-posts-load-more button");
+        if (button) button.disabled = true;
+        try {
+            appendUserPosts(targetUserId, await fetchUserPostsPage(targetUserId));
+        } catch (error) {
+            console.error("Erro ao carregar mais postagens:", error);
+            if (button) button.disabled = false;
+        } finally {
+            profilePostsLoading = false;
+        }
+    }
+
     // Localize e substitua a função createProfilePostElement no arquivo perfil.js
     function createProfilePostElement(post) {
         const postElement = document.createElement("div");
@@ -791,10 +843,9 @@ document.addEventListener("DOMContentLoaded", () => {
             } else { mediaHtml = renderMediaGrid(post.urlsMidia); }
         }
 
-        const rootComments = (post.comentarios || []).filter((c) => !c.parentId);
         let commentsHtml = "";
-        if (typeof window.renderCommentWithReplies === 'function') {
-            commentsHtml = rootComments.sort((a, b) => new Date(a.dataCriacao) - new Date(b.dataCriacao)).map((comment) => window.renderCommentWithReplies(comment, post.comentarios, post)).join("");
+        if (typeof window.renderPostComments === 'function') {
+            commentsHtml = window.renderPostComments(post);
         }
 
         let optionsMenu = "";
@@ -822,7 +873,7 @@ document.addEventListener("DOMContentLoaded", () => {
         ${mediaHtml}
         <div class="post-actions">
             <button class="action-btn ${post.curtidoPeloUsuario ? "liked" : ""}" onclick="window.toggleLike(event, ${post.id}, null)"><i class="${post.curtidoPeloUsuario ? "fas" : "far"} fa-heart"></i> <span id="like-count-post-${post.id}">${post.totalCurtidas || 0}</span></button>
-            <button class="action-btn" onclick="window.toggleComments(${post.id})"><i class="far fa-comment"></i> <span>${post.comentarios?.length || 0}</span></button>
+            <button class="action-btn" onclick="window.toggleComments(${post.id})"><i class="far fa-comment"></i> <span>${post.totalComentarios || 0}</span></button>
         </div>
         <div class="comments-section" id="comments-section-${post.id}" style="display: none;">
             <div class="comments-list">${commentsHtml}</div>
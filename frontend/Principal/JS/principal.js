@@ -541,12 +541,23 @@ function connectWebSocket() {
         window.showNotification(errorMessage, "error");
       });
 
-      // INSCRIÇÃO GLOBAL: Status Online
-      stompClient.subscribe("/topic/status", (message) => {
-        latestOnlineEmails = JSON.parse(message.body); //
+      // INSCRIÇÃO GLOBAL: Status Online dos amigos
+      // Snapshot inicial em /app/status/amigos; depois só as mudanças em /user/queue/status
+      const aplicarPresencaAmigos = (message) => {
+        const evento = JSON.parse(message.body);
+        if (evento.tipo === "snapshot") {
+          latestOnlineEmails = evento.online || [];
+        } else {
+          const offline = evento.offline || [];
+          latestOnlineEmails = latestOnlineEmails
+            .filter((email) => !offline.includes(email))
+            .concat((evento.online || []).filter((email) => !latestOnlineEmails.includes(email)));
+        }
         atualizarStatusDeAmigosNaUI();
         document.dispatchEvent(new CustomEvent("onlineStatusUpdated"));
-      });
+      };
+      stompClient.subscribe("/user/queue/status", aplicarPresencaAmigos);
+      stompClient.subscribe("/app/status/amigos", aplicarPresencaAmigos);
 
       document.dispatchEvent(
         new CustomEvent("globalScriptsLoaded", {
@@ -953,14 +964,16 @@ window.toggleReplies = (buttonElement, commentId) => {
   if (!repliesContainer) return;
 
   if (repliesContainer.style.display === "none") {
-    // Mostrar respostas
+    // Mostrar respostas (a primeira página é carregada na primeira abertura)
     repliesContainer.style.display = "flex"; // Usamos 'flex' pois .comment-replies é flex
     buttonElement.innerHTML = `<i class="fas fa-minus-circle"></i> Ocultar respostas`;
+    if (repliesContainer.dataset.loaded !== "true") {
+      window.loadReplies(commentId);
+    }
   } else {
     // Ocultar respostas
     repliesContainer.style.display = "none";
-    // Re-calcula o número de respostas para o texto do botão
-    const replyCount = repliesContainer.children.length;
+    const replyCount = Number(buttonElement.dataset.total) || 0;
     const plural = replyCount > 1 ? "respostas" : "resposta";
     buttonElement.innerHTML = `<i class="fas fa-comment-dots"></i> Ver ${replyCount} ${plural}`;
   }
@@ -1395,6 +1408,14 @@ window.createCommentElement = (comment, post, allComments) => {
             </div>`;
 };
 
+// Tamanho das páginas de comentários e respostas pedidas ao backend
+const COMMENTS_PAGE_SIZE = 10;
+
+// Postagens já renderizadas (id e autor), usadas ao renderizar páginas de comentários carregadas depois
+window.renderedPosts = window.renderedPosts || {};
+
+// Renderiza um comentário. As respostas não vêm junto: o botão "Ver N respostas"
+// carrega a primeira página de /comentarios/{id}/respostas ao abrir.
 window.renderCommentWithReplies = (
   comment,
   allComments,
@@ -1402,42 +1423,140 @@ window.renderCommentWithReplies = (
   isAlreadyInReplyThread = false
 ) => {
   let commentHtml = window.createCommentElement(comment, post, allComments);
-  const replies = allComments
-    .filter((reply) => reply.parentId === comment.id)
-    .sort((a, b) => new Date(a.dataCriacao) - new Date(b.dataCriacao));
+  const totalReplies = comment.totalRespostas || 0;
 
-  if (replies.length > 0 && !isAlreadyInReplyThread) {
-    const plural = replies.length > 1 ? "respostas" : "resposta";
+  if (totalReplies > 0) {
+    const plural = totalReplies > 1 ? "respostas" : "resposta";
     commentHtml += `
             <div class="view-replies-container">
-                <button class="btn-view-replies" onclick="window.toggleReplies(this, ${comment.id})">
-                    <i class="fas fa-comment-dots"></i> Ver ${replies.length} ${plural}
+                <button class="btn-view-replies" data-total="${totalReplies}" onclick="window.toggleReplies(this, ${comment.id})">
+                    <i class="fas fa-comment-dots"></i> Ver ${totalReplies} ${plural}
                 </button>
             </div>
-            <div class="comment-replies" id="replies-for-${comment.id}" style="display: none;">`;
-
-    replies.forEach((reply) => {
-      commentHtml += window.renderCommentWithReplies(
-        reply,
-        allComments,
-        post,
-        true
-      );
-    });
-    commentHtml += `</div>`;
-  } else if (replies.length > 0 && isAlreadyInReplyThread) {
-    replies.forEach((reply) => {
-      commentHtml += window.renderCommentWithReplies(
-        reply,
-        allComments,
-        post,
-        true
-      );
-    });
+            <div class="comment-replies" id="replies-for-${comment.id}" data-post-id="${post.id}" data-parent-id="${
+      comment.parentId || ""
+    }" data-loaded="false" style="display: none;"></div>`;
   }
   return commentHtml;
 };
 
+// Lista de comentários de uma postagem do feed: a prévia que veio com a postagem
+// e, se houver mais comentários, o botão que pagina /comentarios/postagem/{id}
+window.renderPostComments = (post) => {
+  window.renderedPosts[post.id] = { id: post.id, autorId: post.autorId };
+
+  // A prévia já vem ordenada (destacados primeiro) e só com comentários de primeiro nível
+  const rootComments = (post.comentarios || []).filter((c) => !c.parentId);
+  const commentsHtml = rootComments
+    .map((comment) => window.renderCommentWithReplies(comment, rootComments, post))
+    .join("");
+
+  const shown = rootComments.reduce(
+    (total, c) => total + 1 + (c.totalRespostas || 0),
+    0
+  );
+  let loadMoreHtml = "";
+  if ((post.totalComentarios || 0) > shown) {
+    const last = rootComments[rootComments.length - 1];
+    loadMoreHtml = `
+            <div class="view-replies-container load-more-comments" id="load-more-comments-${post.id}">
+                <button class="btn-view-replies" data-cursor-destacado="${
+                  last ? last.destacado : ""
+                }" data-cursor-id="${last ? last.id : ""}" onclick="window.loadMoreComments(${post.id}, this)">
+                    <i class="fas fa-comments"></i> Ver mais comentários
+                </button>
+            </div>`;
+  }
+  return commentsHtml + loadMoreHtml;
+};
+
+window.loadMoreComments = async (postId, buttonElement) => {
+  const post = window.renderedPosts[postId];
+  const container = document.getElementById(`load-more-comments-${postId}`);
+  if (!post || !container || buttonElement.disabled) return;
+
+  const params = { size: COMMENTS_PAGE_SIZE };
+  if (buttonElement.dataset.cursorId) {
+    params.cursorDestacado = buttonElement.dataset.cursorDestacado;
+    params.cursorId = buttonElement.dataset.cursorId;
+  }
+
+  buttonElement.disabled = true;
+  try {
+    const response = await axios.get(
+      `${window.backendUrl}/comentarios/postagem/${postId}`,
+      { params }
+    );
+    const comments = response.data;
+    const html = comments
+      .filter((c) => !document.getElementById(`comment-${c.id}`))
+      .map((c) => window.renderCommentWithReplies(c, comments, post))
+      .join("");
+    container.insertAdjacentHTML("beforebegin", html);
+
+    if (comments.length < COMMENTS_PAGE_SIZE) {
+      container.remove();
+    } else {
+      const last = comments[comments.length - 1];
+      buttonElement.dataset.cursorDestacado = last.destacado;
+      buttonElement.dataset.cursorId = last.id;
+    }
+  } catch (error) {
+    console.error("Erro ao carregar comentários:", error);
+    showNotification("Não foi possível carregar os comentários.", "error");
+  } finally {
+    buttonElement.disabled = false;
+  }
+};
+
+// Carrega a próxima página de respostas de um comentário para dentro de #replies-for-{id}
+window.loadReplies = async (commentId) => {
+  const container = document.getElementById(`replies-for-${commentId}`);
+  if (!container || container.dataset.loading === "true") return;
+  const post = window.renderedPosts[container.dataset.postId];
+  if (!post) return;
+
+  const oldButton = container.querySelector(":scope > .load-more-replies");
+  const params = { size: COMMENTS_PAGE_SIZE };
+  if (container.dataset.cursorId) params.cursorId = container.dataset.cursorId;
+
+  container.dataset.loading = "true";
+  try {
+    const response = await axios.get(
+      `${window.backendUrl}/comentarios/${commentId}/respostas`,
+      { params }
+    );
+    const replies = response.data;
+    // O comentário pai entra na lista para a tag @Usuario das respostas a respostas
+    const parent = { id: commentId, parentId: container.dataset.parentId || null };
+    const html = replies
+      .filter((r) => !document.getElementById(`comment-${r.id}`))
+      .map((r) => window.renderCommentWithReplies(r, [parent, ...replies], post, true))
+      .join("");
+
+    if (oldButton) oldButton.remove();
+    container.insertAdjacentHTML("beforeend", html);
+    container.dataset.loaded = "true";
+
+    if (replies.length === COMMENTS_PAGE_SIZE) {
+      container.dataset.cursorId = replies[replies.length - 1].id;
+      container.insertAdjacentHTML(
+        "beforeend",
+        `<div class="view-replies-container load-more-replies">
+            <button class="btn-view-replies" onclick="window.loadReplies(${commentId})">
+                <i class="fas fa-comment-dots"></i> Ver mais respostas
+            </button>
+        </div>`
+      );
+    }
+  } catch (error) {
+    console.error("Erro ao carregar respostas:", error);
+    showNotification("Não foi possível carregar as respostas.", "error");
+  } finally {
+    container.dataset.loading = "false";
+  }
+};
+
 // =================================================================
 // LÓGICA DE MODAIS DE EDIÇÃO (GLOBAL)
 // =================================================================
@@ -2164,13 +2283,7 @@ document.addEventListener("DOMContentLoaded", () => {
       }
     }
 
-    const rootComments = (post.comentarios || []).filter((c) => !c.parentId);
-    let commentsHtml = rootComments
-      .sort((a, b) => new Date(a.dataCriacao) - new Date(b.dataCriacao))
-      .map((comment) =>
-        window.renderCommentWithReplies(comment, post.comentarios, post)
-      )
-      .join("");
+    const commentsHtml = window.renderPostComments(post);
 
     let optionsMenu = "";
     if (isAuthor) {
@@ -2213,7 +2326,7 @@ document.addEventListener("DOMContentLoaded", () => {
                 <button class="action-btn" onclick="window.toggleComments(${
                   post.id
                 })"><i class="fas fa-comment"></i> <span>${
-      post.comentarios?.length || 0
+      post.totalComentarios || 0
     }</span></button>
             </div>
             <div class="comments-section" id="comments-section-${
@@ -2308,6 +2421,10 @@ document.addEventListener("DOMContentLoaded", () => {
       // --- 4. Substituir o Elemento na DOM ---
       if (oldPostElement) {
         oldPostElement.replaceWith(newPostElement);
+        // As respostas que estavam abertas são recarregadas (não vêm com a postagem)
+        openReplyContainerIds.forEach((containerId) =>
+          window.loadReplies(containerId.replace("replies-for-", ""))
+        );
       } else {
         // Lógica de fallback caso o post antigo não exista
         // Garante que o nome da função é o correto para o script
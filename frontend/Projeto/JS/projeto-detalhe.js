@@ -468,12 +468,9 @@ async function initializePage() {
         // CORREÇÃO: Buscar status online dos usuários
         await fetchOnlineStatus();
 
-        // Conectar ao WebSocket
+        // Conectar ao WebSocket (as mudanças de status online chegam por ele, sem polling)
         connectToWebSocket();
 
-        // CORREÇÃO: Configurar polling para status online
-        window.fetchOnlineStatusInterval = setInterval(fetchOnlineStatus, 30000); // Atualizar a cada 30 segundos
-
         // CORREÇÃO: Forçar verificação inicial de função
         setTimeout(() => {
             checkUserRole();
@@ -1263,9 +1260,6 @@ function connectToWebSocket() {
     stompClient.connect(headers, (frame) => {
         console.log("Conectado ao WebSocket!");
 
-        // CORREÇÃO: Força uma busca inicial de online assim que conecta
-        fetchOnlineStatus();
-
         // Inscrever-se para mensagens do chat E EVENTOS DE SISTEMA
         stompClient.subscribe(`/topic/grupo/${projectId}`, (message) => {
             const newMessage = JSON.parse(message.body);
@@ -1298,14 +1292,25 @@ function connectToWebSocket() {
             }
         });
 
-        // Inscrever-se para Status Online GLOBAL
-        stompClient.subscribe("/topic/status", (message) => {
-            const onlineEmails = JSON.parse(message.body);
-            window.latestOnlineEmails = onlineEmails;
+        // Status online dos membros do projeto: snapshot em /app/status/projeto/{id},
+        // depois só as mudanças em /topic/grupo/{id}/status
+        const aplicarPresencaMembros = (message) => {
+            const evento = JSON.parse(message.body);
+            const atuais = window.latestOnlineEmails || [];
+            if (evento.tipo === 'snapshot') {
+                window.latestOnlineEmails = evento.online || [];
+            } else {
+                const offline = evento.offline || [];
+                window.latestOnlineEmails = atuais
+                    .filter(email => !offline.includes(email))
+                    .concat((evento.online || []).filter(email => !atuais.includes(email)));
+            }
             updateMembersCount();
             updateMobileInfo(); // NOVO: Atualizar info mobile
             renderMembersList();
-        });
+        };
+        stompClient.subscribe(`/topic/grupo/${projectId}/status`, aplicarPresencaMembros);
+        stompClient.subscribe(`/app/status/projeto/${projectId}`, aplicarPresencaMembros);
 
         // Inscrever-se para erros
         stompClient.subscribe('/user/queue/errors', (message) => {